@@ -0,0 +1,39 @@
+package com.github.mkouba.qute;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+import com.github.mkouba.qute.Results.Result;
+
+/**
+ * A value resolver that is also able to resolve a property of multiple base objects at once, e.g. to fetch the data for
+ * all elements of a loop in a single round trip.
+ * <p>
+ * The {@code loop} section resolves the properties used in its content before the content is rendered: {@code item:name}
+ * and {@code item:price} in <code>{#for item in items}{item:name} {item:price}{/for}</code>. A bulk resolver is only used
+ * for a property if it's the first resolver that applies to the first element of the loop. The values resolved in bulk
+ * are then used instead of the regular resolution of the first part of an expression.
+ * </p>
+ */
+public interface BulkValueResolver extends ValueResolver {
+
+    /**
+     *
+     * @param bases
+     * @param name the name of a property; virtual methods with params are never resolved in bulk
+     * @return {@code true} if {@link #resolveAll(List, String)} should be used for the given bases
+     */
+    default boolean appliesToAll(List<Object> bases, String name) {
+        return true;
+    }
+
+    /**
+     *
+     * @param bases
+     * @param name the name of a property
+     * @return the values in the order of the bases, {@link Result#NOT_FOUND} if a property of a specific base cannot be
+     *         resolved in bulk
+     */
+    CompletionStage<List<Object>> resolveAll(List<Object> bases, String name);
+
+}
@@ -0,0 +1,76 @@
+package com.github.mkouba.qute;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which a rendering must be finished.
+ * 
+ * @see TemplateInstance#timeout(long, TimeUnit)
+ * @see EvalContext#getDeadline()
+ */
+public final class Deadline {
+
+    /**
+     * No deadline.
+     */
+    public static final Deadline NONE = new Deadline(0, false);
+
+    /**
+     * 
+     * @param timeout
+     * @param unit
+     * @return a new deadline
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * 
+     * @param timeout
+     * @param unit
+     * @return the timeout in milliseconds
+     * @throws IllegalArgumentException if the timeout is less than one millisecond
+     */
+    static long toMillis(long timeout, TimeUnit unit) {
+        long millis = unit.toMillis(timeout);
+        if (millis < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 ms: " + timeout + " " + unit);
+        }
+        return millis;
+    }
+
+    private final long nanoTime;
+    private final boolean set;
+
+    private Deadline(long nanoTime, boolean set) {
+        this.nanoTime = nanoTime;
+        this.set = set;
+    }
+
+    /**
+     * 
+     * @return {@code true} if the deadline has passed
+     */
+    public boolean isExpired() {
+        return set && nanoTime - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 
+     * @param unit
+     * @return the time remaining, {@link Long#MAX_VALUE} if there is no deadline
+     */
+    public long remaining(TimeUnit unit) {
+        if (!set) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, nanoTime - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return set ? "Deadline [remaining=" + remaining(TimeUnit.MILLISECONDS) + " ms]" : "Deadline [none]";
+    }
+
+}
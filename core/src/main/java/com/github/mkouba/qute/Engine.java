@@ -2,6 +2,7 @@ package com.github.mkouba.qute;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Template engine configuration.
@@ -22,6 +23,13 @@ public interface Engine {
 
     public Evaluator getEvaluator();
 
+    /**
+     * 
+     * @return the profiler or null if profiling is not enabled
+     * @see EngineBuilder#enableProfiling()
+     */
+    public Profiler getProfiler();
+
     /**
      *
      * @param id
@@ -40,4 +48,15 @@ public interface Engine {
      */
     public Template getTemplate(String id);
 
+    /**
+     * The template is loaded on the rendering executor, or on the {@link java.util.concurrent.ForkJoinPool#commonPool()}
+     * if no executor is set, i.e. the current thread is never blocked by a template locator.
+     * 
+     * @param id
+     * @return a new completion stage completed with the template or null
+     * @see #getTemplate(String)
+     * @see EngineBuilder#renderExecutor(java.util.concurrent.Executor)
+     */
+    public CompletionStage<Template> getTemplateAsync(String id);
+
 }
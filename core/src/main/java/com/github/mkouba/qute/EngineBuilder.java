@@ -4,32 +4,77 @@ import static com.github.mkouba.qute.ValueResolvers.collectionResolver;
 import static com.github.mkouba.qute.ValueResolvers.mapEntryResolver;
 import static com.github.mkouba.qute.ValueResolvers.mapResolver;
 import static com.github.mkouba.qute.ValueResolvers.orResolver;
+import static com.github.mkouba.qute.ValueResolvers.rawResolver;
 import static com.github.mkouba.qute.ValueResolvers.thisResolver;
 
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import com.github.mkouba.qute.Results.Result;
+
 /**
  * Builder for {@link Engine}.
  */
 public final class EngineBuilder {
 
-    private final Map<String, SectionHelperFactory<?>> sectionHelperFactories;
-    private final List<ValueResolver> valueResolvers;
-    private final List<NamespaceResolver> namespaceResolvers;
-    private final List<Function<String, Optional<Reader>>> locators;
+    static final int DEFAULT_OUTPUT_CHUNK_SIZE = 4096;
+    static final long DEFAULT_TIMEOUT = 10_000;
+
+    // The fields are read directly by EngineImpl
+    final Map<String, SectionHelperFactory<?>> sectionHelperFactories;
+    final List<ValueResolver> valueResolvers;
+    final List<NamespaceResolver> namespaceResolvers;
+    final List<Function<String, Optional<Reader>>> locators;
+    boolean profiling;
+    boolean removeStandaloneLines;
+    boolean flattenIncludes;
+    String notFoundValue;
+    boolean collapseWhitespace;
+    int outputChunkSize;
+    Executor renderExecutor;
+    long timeout;
+    int maxInFlightResolvers;
+    boolean singleFlight;
+    BooleanSupplier nonBlockingThreadCheck;
+    final Map<String, Map<String, ValueAccessor>> valueAccessors;
+    final Map<String, Escaper> escapers;
+    final Map<Class<?>, ValueFormatter<?>> formatters;
+    Locale locale;
 
     EngineBuilder() {
         this.sectionHelperFactories = new HashMap<>();
         this.valueResolvers = new ArrayList<>();
         this.namespaceResolvers = new ArrayList<>();
         this.locators = new ArrayList<>();
+        this.valueAccessors = new HashMap<>();
+        this.escapers = new HashMap<>();
+        this.formatters = new HashMap<>();
+        this.locale = Locale.getDefault();
+        this.outputChunkSize = DEFAULT_OUTPUT_CHUNK_SIZE;
+        this.timeout = DEFAULT_TIMEOUT;
+        this.singleFlight = true;
+        this.notFoundValue = Result.NOT_FOUND.toString();
+        // Escaping is enabled by default
+        addEscaper("html", Escapers.HTML);
+        addEscaper("htm", Escapers.HTML);
+        addEscaper("xhtml", Escapers.HTML);
+        addEscaper("xml", Escapers.HTML);
+        addEscaper("json", Escapers.JSON);
+        addEscaper("js", Escapers.JS);
     }
 
     public EngineBuilder addSectionHelper(SectionHelperFactory<?> factory) {
@@ -80,7 +125,22 @@ public final class EngineBuilder {
      */
     public EngineBuilder addDefaultValueResolvers() {
         return addValueResolvers(mapResolver(), mapEntryResolver(), collectionResolver(),
-                thisResolver(), orResolver());
+                thisResolver(), orResolver(), rawResolver());
+    }
+
+    /**
+     * Add the value resolvers generated by the annotation processor from the {@code qute-generator} module, i.e. all
+     * implementations registered in {@code META-INF/services/com.github.mkouba.qute.ValueResolver}.
+     * 
+     * @return self
+     * @see TemplateData
+     * @see TemplateExtension
+     */
+    public EngineBuilder addGeneratedResolvers() {
+        for (ValueResolver resolver : ServiceLoader.load(ValueResolver.class)) {
+            addValueResolver(resolver);
+        }
+        return this;
     }
 
     public EngineBuilder addNamespaceResolver(NamespaceResolver resolver) {
@@ -99,8 +159,227 @@ public final class EngineBuilder {
         return this;
     }
 
+    /**
+     * Enable the profiling mode. The engine then accumulates the wall-time and the number of invocations for each
+     * expression and section node rendered.
+     * 
+     * @return self
+     * @see Engine#getProfiler()
+     */
+    public EngineBuilder enableProfiling() {
+        this.profiling = true;
+        return this;
+    }
+
+    /**
+     * Remove the standalone lines when parsing a template. A standalone line contains only whitespace and at least one
+     * section tag, section block tag, parameter declaration or comment, e.g. <code>  {#for item in items}</code>. The
+     * whole line including the line separator is not part of the output.
+     * 
+     * @return self
+     */
+    public EngineBuilder removeStandaloneLines() {
+        this.removeStandaloneLines = true;
+        return this;
+    }
+
+    /**
+     * An expression that cannot be resolved is rendered as the given value, {@code NOT_FOUND} by default. Note that a
+     * {@code null} value is never rendered.
+     * 
+     * @param value
+     * @return self
+     */
+    public EngineBuilder notFoundValue(String value) {
+        this.notFoundValue = Objects.requireNonNull(value);
+        return this;
+    }
+
+    /**
+     * An {@code include} section is rendered as a single flattened block, i.e. the {@code insert} sections of the included
+     * template are replaced with the blocks of the including template (or the default content) when the included template
+     * is linked. The flattened block is not used if an {@code insert} section of the included template is nested in another
+     * section, or if the included template includes another template.
+     * 
+     * @return self
+     */
+    public EngineBuilder flattenIncludes() {
+        this.flattenIncludes = true;
+        return this;
+    }
+
+    /**
+     * Collapse the insignificant whitespace of HTML templates when parsing, i.e. of templates whose id ends with
+     * {@code html}, {@code htm} or {@code xhtml}. Each sequence of whitespace characters in the static text is replaced
+     * with a single line separator if it contains a line separator, or a single space otherwise. The content of
+     * {@code pre}, {@code textarea} and {@code script} elements is not modified.
+     * 
+     * @return self
+     */
+    public EngineBuilder collapseWhitespace() {
+        this.collapseWhitespace = true;
+        return this;
+    }
+
+    /**
+     * The strings passed to the consumer of {@link Template#render(Object, Consumer)} are coalesced into chunks of the
+     * given size. A string that is longer than the chunk size is passed as is. The default size is 4096.
+     * 
+     * @param size
+     * @return self
+     */
+    public EngineBuilder outputChunkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + size);
+        }
+        this.outputChunkSize = size;
+        return this;
+    }
+
+    /**
+     * Each rendering is started on the given executor, and resumed on the executor whenever an async resolution
+     * completes. The resolvers may then block the current thread, e.g. call a blocking service and return the result
+     * directly instead of a {@link CompletionStage}, without blocking the thread that requested the rendering or the
+     * thread that completed an async resolution.
+     * 
+     * @param executor
+     * @return self
+     * @see #useVirtualThreads()
+     */
+    public EngineBuilder renderExecutor(Executor executor) {
+        this.renderExecutor = Objects.requireNonNull(executor);
+        return this;
+    }
+
+    /**
+     * The check is used to detect the threads that must never be blocked, e.g. the event loop threads of a non-blocking
+     * network layer. {@link TemplateInstance#render()} fails on such a thread if the rendering cannot be finished without
+     * blocking, e.g. if an async resolver returns an incomplete stage. {@link TemplateInstance#renderAsync()} should be
+     * used instead.
+     * 
+     * @param check returns {@code true} if the current thread must not be blocked
+     * @return self
+     */
+    public EngineBuilder nonBlockingThreadCheck(BooleanSupplier check) {
+        this.nonBlockingThreadCheck = Objects.requireNonNull(check);
+        return this;
+    }
+
+    /**
+     * Each rendering is started on a new virtual thread. If virtual threads are not supported by the JVM a cached thread
+     * pool is used instead.
+     * 
+     * @return self
+     * @see #renderExecutor(Executor)
+     */
+    public EngineBuilder useVirtualThreads() {
+        return renderExecutor(VirtualThreads.newExecutor());
+    }
+
+    /**
+     * 
+     * @param timeout the default timeout of a rendering, 10 seconds by default
+     * @param unit
+     * @return self
+     * @throws IllegalArgumentException if the timeout is less than one millisecond
+     * @see TemplateInstance#timeout(long, TimeUnit)
+     */
+    public EngineBuilder timeout(long timeout, TimeUnit unit) {
+        this.timeout = Deadline.toMillis(timeout, unit);
+        return this;
+    }
+
+    /**
+     * Limit the number of async resolver invocations that are in flight at the same time, across all renderings. The
+     * invocations that exceed the limit are queued and started when a previous invocation completes, e.g. a loop over
+     * 1000 elements that calls an async resolver for each element never starts more than {@code limit} invocations. Only
+     * the value resolvers that resolve a property, i.e. not a virtual method with params, and the bulk resolvers are
+     * limited. By default, the number is not limited.
+     * 
+     * @param limit
+     * @return self
+     * @see Resolver#resolve(EvalContext)
+     */
+    public EngineBuilder maxInFlightResolvers(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.maxInFlightResolvers = limit;
+        return this;
+    }
+
+    /**
+     * By default, identical async value resolver invocations that are in flight at the same time during a single rendering
+     * share the same {@link CompletionStage}. An invocation is identical if the resolver and the base object are the same
+     * instances, and the name and the params are equal. Only the invocations with no params or literal params are
+     * deduplicated.
+     * 
+     * @param value
+     * @return self
+     */
+    public EngineBuilder deduplicateAsyncResolvers(boolean value) {
+        this.singleFlight = value;
+        return this;
+    }
+
+    /**
+     * Bind a value accessor to an expression of a specific template. The accessor is used instead of the value resolvers
+     * to resolve all but the first part of the expression.
+     * 
+     * @param templateId
+     * @param expression the expression, e.g. {@code item.price.amount}
+     * @param accessor
+     * @return self
+     * @see Expression#toOriginalString()
+     */
+    public EngineBuilder addValueAccessor(String templateId, String expression, ValueAccessor accessor) {
+        this.valueAccessors.computeIfAbsent(templateId, id -> new HashMap<>()).put(expression, accessor);
+        return this;
+    }
+
+    /**
+     * Register an escaper for the templates whose id ends with the given suffix, e.g. {@code html} for
+     * {@code items.html}. The escaper is applied to the results of all expressions of the template. By default, HTML
+     * escaping is used for {@code html}, {@code htm}, {@code xhtml} and {@code xml}, JSON escaping for {@code json} and
+     * JavaScript escaping for {@code js}. Use {@link Escapers#NONE} to disable escaping for a suffix.
+     * 
+     * @param suffix the suffix without the dot
+     * @param escaper
+     * @return self
+     * @see RawString
+     */
+    public EngineBuilder addEscaper(String suffix, Escaper escaper) {
+        this.escapers.put(suffix, escaper);
+        return this;
+    }
+
+    /**
+     * Register a formatter for the results of expressions of the given type. A formatter registered for a supertype
+     * applies to all subtypes unless a more specific formatter is registered. Superclasses take precedence over interfaces.
+     * 
+     * @param type
+     * @param formatter
+     * @return self
+     * @see Formatters
+     */
+    public <T> EngineBuilder addFormatter(Class<T> type, ValueFormatter<? super T> formatter) {
+        this.formatters.put(type, formatter);
+        return this;
+    }
+
+    /**
+     * 
+     * @param locale the locale passed to the formatters, {@link Locale#getDefault()} is used by default
+     * @return self
+     * @see #addFormatter(Class, ValueFormatter)
+     */
+    public EngineBuilder locale(Locale locale) {
+        this.locale = Objects.requireNonNull(locale);
+        return this;
+    }
+
     public Engine build() {
-        return new EngineImpl(sectionHelperFactories, valueResolvers, namespaceResolvers, locators);
+        return new EngineImpl(this);
     }
 
 }
\ No newline at end of file
@@ -3,16 +3,34 @@ package com.github.mkouba.qute;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.mkouba.qute.Results.Result;
+
 /**
  * 
  */
@@ -25,20 +43,54 @@ class EngineImpl implements Engine {
     private final List<NamespaceResolver> namespaceResolvers;
     private final Evaluator evaluator;
     private final Map<String, Template> templates;
+    // Incremented whenever a template is replaced, i.e. the linked templates must be looked up again
+    private final AtomicInteger templatesVersion;
     private final List<Function<String, Optional<Reader>>> locators;
+    private final Profiler profiler;
+    private final Map<String, Map<String, ValueAccessor>> valueAccessors;
+    private final Map<String, Escaper> escapers;
+    private final Map<Class<?>, ValueFormatter<?>> formatters;
+    private final Map<Class<?>, Optional<ValueFormatter<Object>>> formattersCache;
+    private final Locale locale;
+    private final boolean removeStandaloneLines;
+    private final boolean flattenIncludes;
+    private final String notFoundValue;
+    private final boolean collapseWhitespace;
+    private final int outputChunkSize;
+    private final Executor renderExecutor;
+    private final BooleanSupplier nonBlockingThreadCheck;
+    private final long timeout;
 
-    EngineImpl(Map<String, SectionHelperFactory<?>> sectionHelperFactories, List<ValueResolver> valueResolvers,
-            List<NamespaceResolver> namespaceResolvers, List<Function<String, Optional<Reader>>> locators) {
-        this.sectionHelperFactories = new HashMap<>(sectionHelperFactories);
-        this.valueResolvers = ImmutableList.copyOf(valueResolvers);
-        this.namespaceResolvers = ImmutableList.copyOf(namespaceResolvers);
-        this.evaluator = new EvaluatorImpl(this.valueResolvers);
+    EngineImpl(EngineBuilder builder) {
+        this.sectionHelperFactories = new HashMap<>(builder.sectionHelperFactories);
+        // Stable sort - resolvers with the same priority keep the order of registration
+        List<ValueResolver> sortedResolvers = new ArrayList<>(builder.valueResolvers);
+        sortedResolvers.sort(Comparator.comparingInt(ValueResolver::getPriority).reversed());
+        this.valueResolvers = ImmutableList.copyOf(sortedResolvers);
+        this.namespaceResolvers = ImmutableList.copyOf(builder.namespaceResolvers);
+        this.evaluator = new EvaluatorImpl(this.valueResolvers, builder.maxInFlightResolvers, builder.singleFlight,
+                builder.renderExecutor);
         this.templates = new ConcurrentHashMap<>();
-        this.locators = ImmutableList.copyOf(locators);
+        this.templatesVersion = new AtomicInteger();
+        this.locators = ImmutableList.copyOf(builder.locators);
+        this.profiler = builder.profiling ? new Profiler() : null;
+        this.valueAccessors = new HashMap<>(builder.valueAccessors);
+        this.escapers = new HashMap<>(builder.escapers);
+        this.formatters = new HashMap<>(builder.formatters);
+        this.formattersCache = new ConcurrentHashMap<>();
+        this.locale = builder.locale;
+        this.removeStandaloneLines = builder.removeStandaloneLines;
+        this.flattenIncludes = builder.flattenIncludes;
+        this.notFoundValue = builder.notFoundValue;
+        this.collapseWhitespace = builder.collapseWhitespace;
+        this.outputChunkSize = builder.outputChunkSize;
+        this.renderExecutor = builder.renderExecutor;
+        this.timeout = builder.timeout;
+        this.nonBlockingThreadCheck = builder.nonBlockingThreadCheck;
     }
 
     public Template parse(String content) {
-        return new Parser(this).parse(new StringReader(content));
+        return new Parser(this, null).parse(new StringReader(content));
     }
 
     public Map<String, SectionHelperFactory<?>> getSectionHelperFactories() {
@@ -57,12 +109,203 @@ class EngineImpl implements Engine {
         return evaluator;
     }
 
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * 
+     * @param templateId
+     * @return the escaper registered for the suffix of the template id, or {@code null}
+     */
+    Escaper getEscaper(String templateId) {
+        if (templateId == null) {
+            return null;
+        }
+        int dotIdx = templateId.lastIndexOf('.');
+        if (dotIdx == -1) {
+            return null;
+        }
+        Escaper escaper = escapers.get(templateId.substring(dotIdx + 1));
+        return escaper == Escapers.NONE ? null : escaper;
+    }
+
+    boolean isRemoveStandaloneLines() {
+        return removeStandaloneLines;
+    }
+
+    /**
+     * 
+     * @return the value rendered for an expression that cannot be resolved
+     * @see EngineBuilder#notFoundValue(String)
+     */
+    String getNotFoundValue() {
+        return notFoundValue;
+    }
+
+    boolean isFlattenIncludes() {
+        return flattenIncludes;
+    }
+
+    boolean isCollapseWhitespace(String templateId) {
+        if (!collapseWhitespace || templateId == null) {
+            return false;
+        }
+        int dotIdx = templateId.lastIndexOf('.');
+        if (dotIdx == -1) {
+            return false;
+        }
+        String suffix = templateId.substring(dotIdx + 1);
+        return suffix.equals("html") || suffix.equals("htm") || suffix.equals("xhtml");
+    }
+
+    /**
+     * 
+     * @return the executor used to start a rendering or {@code null}
+     */
+    Executor getRenderExecutor() {
+        return renderExecutor;
+    }
+
+    /**
+     * 
+     * @return {@code true} if the current thread may be blocked
+     * @see EngineBuilder#nonBlockingThreadCheck(BooleanSupplier)
+     */
+    boolean isBlockingAllowed() {
+        return nonBlockingThreadCheck == null || !nonBlockingThreadCheck.getAsBoolean();
+    }
+
+    /**
+     * 
+     * @return the timeout in milliseconds
+     */
+    long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Complete the given future with a {@link java.util.concurrent.TimeoutException} when the deadline expires.
+     * 
+     * @param future
+     * @param deadline
+     */
+    void scheduleTimeout(CompletableFuture<?> future, Deadline deadline) {
+        long remaining = deadline.remaining(TimeUnit.MILLISECONDS);
+        if (remaining == Long.MAX_VALUE) {
+            return;
+        }
+        ScheduledFuture<?> timeout = TimeoutScheduler.INSTANCE
+                .schedule(() -> future.completeExceptionally(Rendering.timeout()), remaining, TimeUnit.MILLISECONDS);
+        future.whenComplete((r, t) -> timeout.cancel(false));
+    }
+
+    int getOutputChunkSize() {
+        return outputChunkSize;
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
+    boolean hasFormatters() {
+        return !formatters.isEmpty();
+    }
+
+    /**
+     * 
+     * @param value
+     * @return the formatted value, or the original value if no formatter is registered for its type
+     */
+    Object format(Object value) {
+        if (value == null || value instanceof RawString || value instanceof Result) {
+            return value;
+        }
+        Optional<ValueFormatter<Object>> formatter = formattersCache.computeIfAbsent(value.getClass(),
+                this::findFormatter);
+        return formatter.isPresent() ? formatter.get().format(value, locale) : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<ValueFormatter<Object>> findFormatter(Class<?> clazz) {
+        // Superclasses first
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            ValueFormatter<?> formatter = formatters.get(c);
+            if (formatter != null) {
+                return Optional.of((ValueFormatter<Object>) formatter);
+            }
+        }
+        // Then all interfaces in breadth-first order
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            Collections.addAll(queue, c.getInterfaces());
+        }
+        while (!queue.isEmpty()) {
+            Class<?> iface = queue.poll();
+            ValueFormatter<?> formatter = formatters.get(iface);
+            if (formatter != null) {
+                return Optional.of((ValueFormatter<Object>) formatter);
+            }
+            Collections.addAll(queue, iface.getInterfaces());
+        }
+        return Optional.empty();
+    }
+
+    ValueAccessor getValueAccessor(String templateId, String expression) {
+        if (templateId == null) {
+            return null;
+        }
+        Map<String, ValueAccessor> accessors = valueAccessors.get(templateId);
+        return accessors != null ? accessors.get(expression) : null;
+    }
+
     public Template putTemplate(String id, Template template) {
-        return templates.put(id, template);
+        Template previous = templates.put(id, template);
+        if (previous != null) {
+            templatesVersion.incrementAndGet();
+        }
+        return previous;
     }
 
     public Template getTemplate(String id) {
-        return templates.computeIfAbsent(id, this::load);
+        Template template = templates.get(id);
+        if (template != null) {
+            return template;
+        }
+        template = templates.computeIfAbsent(id, this::load);
+        if (template != null) {
+            // Preload the included templates
+            loadDependencies(id, template);
+        }
+        return template;
+    }
+
+    int getTemplatesVersion() {
+        return templatesVersion.get();
+    }
+
+    private void loadDependencies(String id, Template template) {
+        if (!(template instanceof TemplateImpl)) {
+            return;
+        }
+        for (String dependency : ((TemplateImpl) template).getDependencies()) {
+            if (templates.containsKey(dependency)) {
+                continue;
+            }
+            if (getTemplate(dependency) == null) {
+                LOGGER.warn("Template {} included in {} not found", dependency, id);
+            }
+        }
+    }
+
+    public CompletionStage<Template> getTemplateAsync(String id) {
+        Template template = templates.get(id);
+        if (template != null) {
+            return CompletableFuture.completedFuture(template);
+        }
+        // Locators may perform blocking I/O
+        return CompletableFuture.supplyAsync(() -> getTemplate(id),
+                renderExecutor != null ? renderExecutor : ForkJoinPool.commonPool());
     }
 
     private Template load(String id) {
@@ -70,7 +313,7 @@ class EngineImpl implements Engine {
             Optional<Reader> reader = locator.apply(id);
             if (reader.isPresent()) {
                 try {
-                    return new Parser(this).parse(reader.get());
+                    return new Parser(this, id).parse(reader.get());
                 } finally {
                     try {
                         reader.get().close();
@@ -83,4 +326,24 @@ class EngineImpl implements Engine {
         return null;
     }
 
+    /**
+     * A single daemon thread shared by all engines, i.e. an engine does not need to be closed. The thread is only started
+     * when a timeout is scheduled for the first time.
+     */
+    static final class TimeoutScheduler {
+
+        static final ScheduledExecutorService INSTANCE;
+
+        static {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "qute-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            INSTANCE = executor;
+        }
+
+    }
+
 }
@@ -0,0 +1,20 @@
+package com.github.mkouba.qute;
+
+/**
+ * Escapes the result of an expression before it's written to the output. Text nodes are never escaped.
+ * 
+ * @see Escapers
+ * @see RawString
+ * @see EngineBuilder#addEscaper(String, Escaper)
+ */
+@FunctionalInterface
+public interface Escaper {
+
+    /**
+     * 
+     * @param value
+     * @return the escaped value, or the original instance if no character needs to be escaped
+     */
+    String escape(String value);
+
+}
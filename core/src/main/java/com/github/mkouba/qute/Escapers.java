@@ -0,0 +1,234 @@
+package com.github.mkouba.qute;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in escapers.
+ * <p>
+ * The replacements are precomputed in lookup tables. An escaper first looks for the first character that needs to be
+ * escaped and returns the original string if there is none. Otherwise, the runs of characters that need no escaping are
+ * copied in bulk.
+ * </p>
+ */
+public final class Escapers {
+
+    private Escapers() {
+    }
+
+    /**
+     * Does not escape anything.
+     */
+    public static final Escaper NONE = value -> value;
+
+    /**
+     * Escapes the HTML/XML special characters: {@code < > & " '}.
+     */
+    public static final Escaper HTML = new TableEscaper(htmlTable(), false);
+
+    /**
+     * Escapes the HTML special characters and also the characters that may terminate an unquoted attribute value.
+     */
+    public static final Escaper ATTRIBUTE = new TableEscaper(attributeTable(), false);
+
+    /**
+     * Escapes a value embedded in a JavaScript string literal.
+     */
+    public static final Escaper JS = new TableEscaper(jsTable(), true);
+
+    /**
+     * Escapes a value embedded in a JSON string.
+     */
+    public static final Escaper JSON = new TableEscaper(jsonTable(), true);
+
+    /**
+     * Percent-encodes all characters except the unreserved ones ({@code A-Z a-z 0-9 - . _ ~}). The UTF-8 encoding is
+     * used for non-ASCII characters.
+     */
+    public static final Escaper URL = new UrlEscaper();
+
+    static final int TABLE_SIZE = 128;
+
+    /**
+     * 
+     * @param escaper
+     * @return {@code true} if the escaper is a built-in escaper, i.e. never modifies digits, letters and {@code -}
+     */
+    static boolean isBuiltIn(Escaper escaper) {
+        return escaper == NONE || escaper == HTML || escaper == ATTRIBUTE || escaper == JS || escaper == JSON
+                || escaper == URL;
+    }
+
+    private static String[] htmlTable() {
+        String[] table = new String[TABLE_SIZE];
+        table['<'] = "&lt;";
+        table['>'] = "&gt;";
+        table['&'] = "&amp;";
+        table['"'] = "&quot;";
+        table['\''] = "&#39;";
+        return table;
+    }
+
+    private static String[] attributeTable() {
+        String[] table = htmlTable();
+        table['`'] = "&#96;";
+        table['='] = "&#61;";
+        table[' '] = "&#32;";
+        table['\t'] = "&#9;";
+        table['\n'] = "&#10;";
+        table['\r'] = "&#13;";
+        table['\f'] = "&#12;";
+        return table;
+    }
+
+    private static String[] jsonTable() {
+        String[] table = new String[TABLE_SIZE];
+        for (char c = 0; c < 0x20; c++) {
+            table[c] = unicodeEscape(c);
+        }
+        table['\b'] = "\\b";
+        table['\t'] = "\\t";
+        table['\n'] = "\\n";
+        table['\f'] = "\\f";
+        table['\r'] = "\\r";
+        table['"'] = "\\\"";
+        table['\\'] = "\\\\";
+        // Make it safe to embed the value in a <script> element
+        table['<'] = unicodeEscape('<');
+        table['>'] = unicodeEscape('>');
+        table['&'] = unicodeEscape('&');
+        table[0x7f] = unicodeEscape((char) 0x7f);
+        return table;
+    }
+
+    private static String[] jsTable() {
+        String[] table = jsonTable();
+        table['\''] = "\\'";
+        table['/'] = "\\/";
+        table['`'] = unicodeEscape('`');
+        table['='] = unicodeEscape('=');
+        return table;
+    }
+
+    static String unicodeEscape(char c) {
+        String hex = Integer.toHexString(c);
+        StringBuilder builder = new StringBuilder(6).append("\\u");
+        for (int i = hex.length(); i < 4; i++) {
+            builder.append('0');
+        }
+        return builder.append(hex).toString();
+    }
+
+    static final class TableEscaper implements Escaper {
+
+        private final String[] replacements;
+        // JS/JSON - U+2028 and U+2029 are line terminators in JavaScript
+        private final boolean lineSeparators;
+
+        TableEscaper(String[] replacements, boolean lineSeparators) {
+            this.replacements = replacements;
+            this.lineSeparators = lineSeparators;
+        }
+
+        @Override
+        public String escape(String value) {
+            int length = value.length();
+            int idx = 0;
+            while (idx < length && replacement(value.charAt(idx)) == null) {
+                idx++;
+            }
+            if (idx == length) {
+                // Nothing to escape
+                return value;
+            }
+            StringBuilder builder = new StringBuilder(length + 16);
+            int start = 0;
+            for (; idx < length; idx++) {
+                String replacement = replacement(value.charAt(idx));
+                if (replacement != null) {
+                    builder.append(value, start, idx).append(replacement);
+                    start = idx + 1;
+                }
+            }
+            return builder.append(value, start, length).toString();
+        }
+
+        private String replacement(char c) {
+            if (c < TABLE_SIZE) {
+                return replacements[c];
+            }
+            if (lineSeparators && (c == '\u2028' || c == '\u2029')) {
+                return unicodeEscape(c);
+            }
+            return null;
+        }
+
+    }
+
+    static final class UrlEscaper implements Escaper {
+
+        private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+        private static final boolean[] UNRESERVED = new boolean[TABLE_SIZE];
+
+        static {
+            for (char c = 'a'; c <= 'z'; c++) {
+                UNRESERVED[c] = true;
+            }
+            for (char c = 'A'; c <= 'Z'; c++) {
+                UNRESERVED[c] = true;
+            }
+            for (char c = '0'; c <= '9'; c++) {
+                UNRESERVED[c] = true;
+            }
+            UNRESERVED['-'] = true;
+            UNRESERVED['.'] = true;
+            UNRESERVED['_'] = true;
+            UNRESERVED['~'] = true;
+        }
+
+        @Override
+        public String escape(String value) {
+            int length = value.length();
+            int idx = 0;
+            while (idx < length && isUnreserved(value.charAt(idx))) {
+                idx++;
+            }
+            if (idx == length) {
+                return value;
+            }
+            StringBuilder builder = new StringBuilder(length + 16);
+            int start = 0;
+            while (idx < length) {
+                char c = value.charAt(idx);
+                if (isUnreserved(c)) {
+                    idx++;
+                    continue;
+                }
+                builder.append(value, start, idx);
+                if (c < TABLE_SIZE) {
+                    appendByte(builder, c);
+                    idx++;
+                } else {
+                    // Encode the whole code point, i.e. including the low surrogate
+                    int end = Character.isHighSurrogate(c) && idx + 1 < length
+                            && Character.isLowSurrogate(value.charAt(idx + 1)) ? idx + 2 : idx + 1;
+                    for (byte b : value.substring(idx, end).getBytes(StandardCharsets.UTF_8)) {
+                        appendByte(builder, b);
+                    }
+                    idx = end;
+                }
+                start = idx;
+            }
+            return builder.append(value, start, length).toString();
+        }
+
+        private static boolean isUnreserved(char c) {
+            return c < TABLE_SIZE && UNRESERVED[c];
+        }
+
+        private static void appendByte(StringBuilder builder, int b) {
+            builder.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+
+    }
+
+}
@@ -29,10 +29,35 @@ public interface EvalContext {
      */
     List<String> getParams();
 
+    /**
+     * The engine evaluates each param of the context at most once, i.e. a resolver may evaluate a param in both
+     * {@link Resolver#resolveSync(EvalContext)} and {@link Resolver#resolve(EvalContext)}.
+     * 
+     * @param expression
+     * @return the result
+     */
     default CompletionStage<Object> evaluate(String expression) {
         return evaluate(Expression.parse(expression));
     }
 
     CompletionStage<Object> evaluate(Expression expression);
 
+    /**
+     * A resolver may use the deadline to limit the time spent in a call to an external service.
+     * 
+     * @return the deadline of the current rendering
+     */
+    default Deadline getDeadline() {
+        return Deadline.NONE;
+    }
+
+    /**
+     * A resolver should not start any new work if the current rendering was cancelled.
+     * 
+     * @return {@code true} if the current rendering was cancelled or its deadline expired
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
 }
\ No newline at end of file
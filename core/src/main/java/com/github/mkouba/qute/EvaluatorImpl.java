@@ -1,11 +1,15 @@
 package com.github.mkouba.qute;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,45 +17,212 @@ import org.slf4j.LoggerFactory;
 import com.github.mkouba.qute.Results.Result;
 
 /**
- * TODO get rid of iterators and prepare for parallel processing
+ * TODO prepare for parallel processing
  */
 class EvaluatorImpl implements Evaluator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EvaluatorImpl.class);
 
     private final List<ValueResolver> valueResolvers;
+    private final boolean hasBulkResolvers;
+    private final boolean hasPureResolvers;
+    private final InFlightLimiter limiter;
+    private final boolean singleFlight;
+    private final Executor renderExecutor;
 
-    EvaluatorImpl(List<ValueResolver> valueResolvers) {
+    /**
+     * 
+     * @param valueResolvers
+     * @param maxInFlightResolvers
+     * @param singleFlight
+     * @param renderExecutor if set, the rendering is resumed on the executor when an async resolution completes
+     */
+    EvaluatorImpl(List<ValueResolver> valueResolvers, int maxInFlightResolvers, boolean singleFlight,
+            Executor renderExecutor) {
         this.valueResolvers = valueResolvers;
+        this.singleFlight = singleFlight;
+        this.renderExecutor = renderExecutor;
+        this.limiter = maxInFlightResolvers > 0 ? new InFlightLimiter(maxInFlightResolvers) : null;
+        this.hasBulkResolvers = valueResolvers.stream().anyMatch(r -> r instanceof BulkValueResolver);
+        this.hasPureResolvers = valueResolvers.stream().anyMatch(ValueResolver::isPure);
     }
 
     @Override
     public CompletionStage<Object> evaluate(Expression expression, ResolutionContext resolutionContext) {
-        Iterator<String> parts;
         if (expression.namespace != null) {
-            parts = expression.parts.iterator();
             NamespaceResolver resolver = findNamespaceResolver(expression.namespace, resolutionContext);
             if (resolver == null) {
                 LOGGER.error("No namespace resolver found for: {}", expression.namespace);
                 return Futures.failure(new IllegalStateException("No resolver for namespace: " + expression.namespace));
             }
-            EvalContext context = new EvalContextImpl(null, parts.next(), resolutionContext);
             LOGGER.debug("Found '{}' namespace resolver: {}", expression.namespace, resolver.getClass());
-            return resolver.resolve(context).thenCompose(r -> {
-                if (parts.hasNext()) {
-                    return resolveReference(r, parts, valueResolvers.iterator(), resolutionContext);
-                } else {
-                    return CompletableFuture.completedFuture(r);
-                }
-            });
+            if (resolver.isPure() && resolutionContext instanceof ResolutionContextImpl) {
+                // The result does not depend on the resolution context
+                return evaluateMemoized(expression, resolver, (ResolutionContextImpl) resolutionContext);
+            }
+            EvalContext context = new EvalContextImpl(null, expression.parts.get(0), resolutionContext);
+            Object result = resolver.resolveSync(context);
+            if (result == Result.ASYNC) {
+                return track(resolver.resolve(context), resolutionContext).thenCompose(r -> {
+                    if (expression.parts.size() > 1) {
+                        return resolveReference(r, expression.parts, 1, resolutionContext, null);
+                    } else {
+                        return CompletableFuture.completedFuture(r);
+                    }
+                });
+            }
+            if (expression.parts.size() > 1) {
+                return resolveReference(result, expression.parts, 1, resolutionContext, null);
+            } else {
+                return CompletableFuture.completedFuture(result);
+            }
         } else {
             if (expression.literal != null) {
                 return expression.literal;
+            } else if (hasPureResolvers && resolutionContext instanceof ResolutionContextImpl) {
+                ResolutionContextImpl context = (ResolutionContextImpl) resolutionContext;
+                Object memoized = context.getMemoized(context, expression);
+                if (!Result.NOT_FOUND.equals(memoized)) {
+                    return CompletableFuture.completedFuture(memoized);
+                }
+                Purity purity = new Purity();
+                return memoize(resolveReference(resolutionContext.getData(), expression.parts, 0, resolutionContext, purity),
+                        purity, context, context, expression);
             } else {
-                parts = expression.parts.iterator();
-                return resolveReference(resolutionContext.getData(), parts, valueResolvers.iterator(), resolutionContext);
+                return resolveReference(resolutionContext.getData(), expression.parts, 0, resolutionContext, null);
+            }
+        }
+    }
+
+    private CompletionStage<Object> evaluateMemoized(Expression expression, NamespaceResolver resolver,
+            ResolutionContextImpl resolutionContext) {
+        Object memoized = resolutionContext.getMemoized(resolver, expression);
+        if (!Result.NOT_FOUND.equals(memoized)) {
+            return CompletableFuture.completedFuture(memoized);
+        }
+        String name = expression.parts.get(0);
+        Object result = resolutionContext.getMemoized(resolver, name);
+        if (Result.NOT_FOUND.equals(result)) {
+            EvalContext context = new EvalContextImpl(null, name, resolutionContext);
+            result = resolver.resolveSync(context);
+            if (result == Result.ASYNC) {
+                return track(resolver.resolve(context), resolutionContext).thenCompose(r -> {
+                    if (!Result.NOT_FOUND.equals(r)) {
+                        resolutionContext.memoize(resolver, name, r);
+                    }
+                    return resolveMemoized(r, expression, resolver, resolutionContext);
+                });
+            } else if (!Result.NOT_FOUND.equals(result)) {
+                resolutionContext.memoize(resolver, name, result);
+            }
+        }
+        return resolveMemoized(result, expression, resolver, resolutionContext);
+    }
+
+    private CompletionStage<Object> resolveMemoized(Object ref, Expression expression, NamespaceResolver resolver,
+            ResolutionContextImpl resolutionContext) {
+        if (expression.parts.size() == 1) {
+            return CompletableFuture.completedFuture(ref);
+        }
+        Purity purity = new Purity();
+        return memoize(resolveReference(ref, expression.parts, 1, resolutionContext, purity), purity, resolutionContext,
+                resolver, expression);
+    }
+
+    private CompletionStage<Object> memoize(CompletionStage<Object> result, Purity purity,
+            ResolutionContextImpl resolutionContext, Object scope, Expression expression) {
+        return result.thenApply(r -> {
+            if (purity.pure && !Result.NOT_FOUND.equals(r)) {
+                resolutionContext.memoize(scope, expression, r);
+            }
+            return r;
+        });
+    }
+
+    /**
+     * A property is only resolved in bulk if the first resolver that applies to the first base is a
+     * {@link BulkValueResolver}.
+     * 
+     * @param bases
+     * @param names the property names
+     * @param resolutionContext
+     * @return the map of property names to the values in the order of the bases
+     */
+    CompletionStage<Map<String, List<Object>>> evaluateAll(List<Object> bases, Collection<String> names,
+            ResolutionContext resolutionContext) {
+        if (!hasBulkResolvers || bases.isEmpty() || names.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        Map<String, CompletableFuture<List<Object>>> results = new HashMap<>();
+        for (String name : names) {
+            EvalContextImpl valueContext = new EvalContextImpl(bases.get(0), name, resolutionContext);
+            for (ValueResolver resolver : valueResolvers) {
+                if (resolver.appliesTo(valueContext)) {
+                    if (resolver instanceof BulkValueResolver && ((BulkValueResolver) resolver).appliesToAll(bases, name)) {
+                        LOGGER.debug("Resolving {} in bulk for {} bases", name, bases.size());
+                        BulkValueResolver bulkResolver = (BulkValueResolver) resolver;
+                        CompletionStage<List<Object>> values = limiter != null
+                                ? limiter.submit(() -> bulkResolver.resolveAll(bases, name))
+                                : bulkResolver.resolveAll(bases, name);
+                        results.put(name, track(values, resolutionContext).toCompletableFuture());
+                    }
+                    break;
+                }
+            }
+        }
+        if (results.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        return CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, List<Object>> values = new HashMap<>();
+            for (Entry<String, CompletableFuture<List<Object>>> entry : results.entrySet()) {
+                List<Object> list = entry.getValue().join();
+                if (list.size() != bases.size()) {
+                    throw new IllegalStateException(
+                            "Invalid number of values resolved in bulk for " + entry.getKey() + ": " + list.size());
+                }
+                values.put(entry.getKey(), list);
+            }
+            return values;
+        });
+    }
+
+    private CompletionStage<Object> invoke(ValueResolver resolver, EvalContext context) {
+        if (limiter != null && context.getParams().isEmpty()) {
+            // The number of async invocations in flight is limited
+            // Virtual methods are never limited - a resolver that evaluates the params while holding a permit could block
+            // the nested invocations forever
+            return limiter.submit(() -> resolver.resolve(context));
+        }
+        return resolver.resolve(context);
+    }
+
+    /**
+     * 
+     * @param context
+     * @return {@code true} if all the params are literals, i.e. the params evaluate to the same values in any context
+     */
+    private static boolean hasLiteralParams(EvalContext context) {
+        for (String param : context.getParams()) {
+            if (LiteralSupport.getLiteral(param) == Result.NOT_FOUND) {
+                return false;
             }
         }
+        return true;
+    }
+
+    private <T> CompletionStage<T> track(CompletionStage<T> stage, ResolutionContext resolutionContext) {
+        if (resolutionContext instanceof ResolutionContextImpl) {
+            // The stage is cancelled if the rendering is cancelled
+            stage = ((ResolutionContextImpl) resolutionContext).track(stage);
+        }
+        if (renderExecutor != null && !stage.toCompletableFuture().isDone()) {
+            // The stage may be completed on a thread that must not be blocked, e.g. an I/O thread of an HTTP client
+            // The dependent actions, i.e. the rest of the rendering, are executed on the executor
+            return stage.whenCompleteAsync((r, t) -> {
+            }, renderExecutor);
+        }
+        return stage;
     }
 
     private NamespaceResolver findNamespaceResolver(String namespace, ResolutionContext resolutionContext) {
@@ -66,34 +237,94 @@ class EvaluatorImpl implements Evaluator {
         return findNamespaceResolver(namespace, resolutionContext.getParent());
     }
 
-    private CompletionStage<Object> resolveReference(Object ref, Iterator<String> parts,
-            Iterator<ValueResolver> resolvers, ResolutionContext resolutionContext) {
-        return resolve(new EvalContextImpl(ref, parts.next(), resolutionContext), resolvers).thenCompose(r -> {
-            if (parts.hasNext()) {
-                return resolveReference(r, parts, valueResolvers.iterator(), resolutionContext);
+    /**
+     * The parts are resolved synchronously until a resolver requires an async resolution.
+     */
+    private CompletionStage<Object> resolveReference(Object ref, List<String> parts, int partIndex,
+            ResolutionContext resolutionContext, Purity purity) {
+        Object value = ref;
+        int start = partIndex;
+        if (partIndex == 0 && hasBulkResolvers && resolutionContext instanceof ResolutionContextImpl) {
+            // The first part may be already resolved in bulk
+            Object prefetched = ((ResolutionContextImpl) resolutionContext).getPrefetched(parts.get(0));
+            if (!Result.NOT_FOUND.equals(prefetched)) {
+                if (purity != null) {
+                    purity.pure = false;
+                }
+                value = prefetched;
+                start = 1;
+            }
+        }
+        for (int i = start; i < parts.size(); i++) {
+            EvalContextImpl valueContext = new EvalContextImpl(value, parts.get(i), resolutionContext);
+            value = Result.NOT_FOUND;
+            for (int j = 0; j < valueResolvers.size(); j++) {
+                ValueResolver resolver = valueResolvers.get(j);
+                if (!resolver.appliesTo(valueContext)) {
+                    continue;
+                }
+                Object result = resolver.resolveSync(valueContext);
+                if (result == Result.ASYNC) {
+                    int nextPart = i + 1;
+                    return resolve(valueContext, resolver, j + 1, purity).thenCompose(r -> {
+                        if (nextPart < parts.size()) {
+                            return resolveReference(r, parts, nextPart, resolutionContext, purity);
+                        } else {
+                            return CompletableFuture.completedFuture(r);
+                        }
+                    });
+                } else if (!Result.NOT_FOUND.equals(result)) {
+                    if (purity != null && !resolver.isPure()) {
+                        purity.pure = false;
+                    }
+                    value = result;
+                    break;
+                }
+            }
+        }
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private CompletionStage<Object> resolve(EvalContextImpl valueContext, ValueResolver resolver, int nextResolver,
+            Purity purity) {
+        CompletionStage<Object> invocation;
+        if (singleFlight && valueContext.resolutionContext instanceof ResolutionContextImpl
+                && hasLiteralParams(valueContext)) {
+            // Identical invocations in flight share the same stage
+            invocation = ((ResolutionContextImpl) valueContext.resolutionContext).singleFlight(resolver, valueContext,
+                    () -> invoke(resolver, valueContext));
+        } else {
+            invocation = invoke(resolver, valueContext);
+        }
+        return track(invocation, valueContext.resolutionContext).thenCompose(r -> {
+            if (Result.NOT_FOUND.equals(r)) {
+                return resolve(valueContext, nextResolver, purity);
             } else {
+                if (purity != null && !resolver.isPure()) {
+                    purity.pure = false;
+                }
                 return CompletableFuture.completedFuture(r);
             }
         });
     }
 
-    private CompletionStage<Object> resolve(EvalContextImpl valueContext, Iterator<ValueResolver> resolvers) {
-        if (!resolvers.hasNext()) {
-            return Results.NOT_FOUND;
-        }
-        ValueResolver resolver = resolvers.next();
-        if (resolver.appliesTo(valueContext)) {
-            return resolver.resolve(valueContext).thenCompose(r -> {
-                if (Result.NOT_FOUND.equals(r)) {
-                    return resolve(valueContext, resolvers);
-                } else {
-                    return CompletableFuture.completedFuture(r);
-                }
-            });
-        } else {
-            // Try next resolver
-            return resolve(valueContext, resolvers);
+    private CompletionStage<Object> resolve(EvalContextImpl valueContext, int resolverIndex, Purity purity) {
+        for (int i = resolverIndex; i < valueResolvers.size(); i++) {
+            ValueResolver resolver = valueResolvers.get(i);
+            if (resolver.appliesTo(valueContext)) {
+                return resolve(valueContext, resolver, i + 1, purity);
+            }
         }
+        return Results.NOT_FOUND;
+    }
+
+    /**
+     * Tracks whether all the resolvers used to evaluate an expression are pure.
+     */
+    static final class Purity {
+
+        volatile boolean pure = true;
+
     }
 
     class EvalContextImpl implements EvalContext {
@@ -102,6 +333,8 @@ class EvaluatorImpl implements Evaluator {
         final String name;
         final List<String> params;
         final ResolutionContext resolutionContext;
+        // Evaluated params, lazily initialized
+        private List<CompletionStage<Object>> evaluatedParams;
 
         public EvalContextImpl(Object base, String name, ResolutionContext resolutionContext) {
             this.base = base;
@@ -136,11 +369,43 @@ class EvaluatorImpl implements Evaluator {
             return params;
         }
 
+        /**
+         * A param is only evaluated once, i.e. a resolver that returns {@link Result#ASYNC} from
+         * {@link Resolver#resolveSync(EvalContext)} reuses the evaluation started in the sync path. Note that the
+         * context is never accessed concurrently.
+         */
+        @Override
+        public CompletionStage<Object> evaluate(String expression) {
+            int index = params.indexOf(expression);
+            if (index == -1) {
+                return evaluate(Expression.parse(expression));
+            }
+            if (evaluatedParams == null) {
+                evaluatedParams = new ArrayList<>(Collections.nCopies(params.size(), null));
+            }
+            CompletionStage<Object> evaluated = evaluatedParams.get(index);
+            if (evaluated == null) {
+                evaluated = evaluate(Expression.parse(expression));
+                evaluatedParams.set(index, evaluated);
+            }
+            return evaluated;
+        }
+
         @Override
         public CompletionStage<Object> evaluate(Expression expression) {
             return resolutionContext.evaluate(expression);
         }
 
+        @Override
+        public Deadline getDeadline() {
+            return resolutionContext.getDeadline();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return resolutionContext.isCancelled();
+        }
+
     }
 
 }
@@ -1,7 +1,9 @@
 package com.github.mkouba.qute;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 import com.github.mkouba.qute.Results.Result;
@@ -14,17 +16,25 @@ import com.github.mkouba.qute.Results.Result;
  */
 public final class Expression {
 
-    static final Expression EMPTY = new Expression(null, Collections.emptyList(), null);
+    static final Expression EMPTY = new Expression(null, Collections.emptyList(), null, null);
 
     public static Expression single(String value) {
         if (value == null || value.isEmpty()) {
             return EMPTY;
         }
         // No literal, no namespace, single part
-        return new Expression(null, Collections.singletonList(value), LiteralSupport.getLiteral(value));
+        return new Expression(null, Collections.singletonList(value), LiteralSupport.getLiteral(value), null);
     }
 
     public static Expression parse(String value) {
+        return parse(value, null);
+    }
+
+    static Expression parse(String value, Origin origin) {
+        return parse(value, origin, false);
+    }
+
+    static Expression parse(String value, Origin origin, boolean nested) {
         if (value == null || value.isEmpty()) {
             return EMPTY;
         }
@@ -44,24 +54,83 @@ public final class Expression {
                 literal = LiteralSupport.getLiteral(parts.get(0));
             }
         }
-        return new Expression(namespace, parts, literal);
+        return new Expression(namespace, parts, literal, origin, nested);
     }
 
     public final String namespace;
     public final List<String> parts;
     public final CompletableFuture<Object> literal;
+    /**
+     * The origin of the expression tag or {@code null} if the expression was not parsed from a template.
+     */
+    public final Origin origin;
+    /**
+     * {@code true} if the expression is nested in a section that changes the resolution context, e.g. a loop, i.e. the
+     * first part is not necessarily resolved against the template data.
+     * 
+     * @see SectionHelperFactory#changesResolutionContext()
+     */
+    public final boolean nested;
+    private final int hashCode;
 
-    Expression(String namespace, List<String> parts, Object literal) {
+    Expression(String namespace, List<String> parts, Object literal, Origin origin) {
+        this(namespace, parts, literal, origin, false);
+    }
+
+    Expression(String namespace, List<String> parts, Object literal, Origin origin, boolean nested) {
         this.namespace = namespace;
         this.parts = parts;
         this.literal = literal != Result.NOT_FOUND ? CompletableFuture.completedFuture(literal) : null;
+        this.origin = origin;
+        this.nested = nested;
+        this.hashCode = Objects.hash(namespace, parts);
+    }
+
+    /**
+     * Note that the infix notation is not preserved, i.e. {@code name or 'John'} is represented as
+     * {@code name.or('John')}.
+     * 
+     * @return the string representation of the expression that can be parsed again, e.g. {@code data:item.name}
+     */
+    public String toOriginalString() {
+        StringBuilder builder = new StringBuilder();
+        if (namespace != null) {
+            builder.append(namespace).append(':');
+        }
+        for (Iterator<String> iterator = parts.iterator(); iterator.hasNext();) {
+            builder.append(iterator.next());
+            if (iterator.hasNext()) {
+                builder.append('.');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The origin is not taken into account, i.e. identical expressions from different tags are equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Expression)) {
+            return false;
+        }
+        Expression other = (Expression) obj;
+        return hashCode == other.hashCode && Objects.equals(namespace, other.namespace) && parts.equals(other.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append("Expression [namespace=").append(namespace).append(", parts=").append(parts).append(", literal=")
-                .append(literal).append("]");
+                .append(literal).append(", origin=").append(origin).append("]");
         return builder.toString();
     }
 
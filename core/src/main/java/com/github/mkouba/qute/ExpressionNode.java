@@ -1,29 +1,145 @@
 package com.github.mkouba.qute;
 
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
+import com.github.mkouba.qute.Results.Result;
+
 /**
  * This node holds a single expression such as {@code foo.bar}.
  */
 class ExpressionNode implements TemplateNode {
 
-    private final Expression expression;
+    final String value;
+    final Expression expression;
+    private final Origin origin;
+    private final Profiler profiler;
+    private final ValueAccessor accessor;
+    private final Expression accessorBase;
+    private final Escaper escaper;
+    private final boolean escapesDigits;
+    private final ResultNode notFound;
+    // Only set if there are formatters registered
+    private final EngineImpl engine;
+    // The type of the last result, usually the same type is resolved for each rendering
+    private volatile TypeProfile profile;
+
+    public ExpressionNode(String value, Origin origin, EngineImpl engine) {
+        this(value, origin, engine, false);
+    }
 
-    public ExpressionNode(String value) {
-        this.expression = Expression.parse(value);
+    /**
+     * 
+     * @param value
+     * @param origin
+     * @param engine
+     * @param nested {@code true} if nested in a section that changes the resolution context; value accessors are not used
+     */
+    ExpressionNode(String value, Origin origin, EngineImpl engine, boolean nested) {
+        this.value = value;
+        this.expression = Expression.parse(value, origin, nested);
+        this.origin = origin;
+        this.profiler = engine.getProfiler();
+        this.accessor = origin != null && !nested && expression.parts.size() > 1
+                ? engine.getValueAccessor(origin.templateId, expression.toOriginalString())
+                : null;
+        this.accessorBase = accessor != null
+                ? new Expression(expression.namespace, Collections.singletonList(expression.parts.get(0)),
+                        Result.NOT_FOUND, origin)
+                : null;
+        this.escaper = engine.getEscaper(origin != null ? origin.templateId : null);
+        this.escapesDigits = escaper != null && !Escapers.isBuiltIn(escaper);
+        this.notFound = TypedResultNodes.text(engine.getNotFoundValue(), escaper);
+        this.engine = engine.hasFormatters() ? engine : null;
     }
 
     @Override
     public CompletionStage<ResultNode> resolve(ResolutionContext context) {
+        if (profiler != null) {
+            return profiler.profile(this, System.nanoTime(), resolveExpression(context));
+        }
+        return resolveExpression(context);
+    }
+
+    private CompletionStage<ResultNode> resolveExpression(ResolutionContext context) {
+        if (accessor != null) {
+            // Resolve the first part and access the rest of the expression directly
+            return context.evaluate(accessorBase).thenCompose(base -> {
+                Object value = accessor.access(base);
+                if (value == Result.NOT_FOUND) {
+                    // The accessor is not applicable, e.g. the base is not of the declared type
+                    return evaluateExpression(context);
+                }
+                return CompletableFuture.completedFuture(toResultNode(value));
+            });
+        }
+        return evaluateExpression(context);
+    }
+
+    private CompletionStage<ResultNode> evaluateExpression(ResolutionContext context) {
         return context.evaluate(expression)
-                .thenCompose(r -> CompletableFuture.<ResultNode> completedFuture(new SingleResultNode(r)));
+                .thenCompose(r -> CompletableFuture.completedFuture(toResultNode(r)));
+    }
+
+    /**
+     * 
+     * @return the text node that renders the value of a literal expression, or {@code null} if the expression is not a
+     *         literal or the profiling mode is enabled
+     */
+    TextNode toTextNode() {
+        if (profiler != null || expression.literal == null) {
+            return null;
+        }
+        Object literal = expression.literal.join();
+        if (literal == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        toResultNode(literal).process(builder::append);
+        return new TextNode(builder.toString());
+    }
+
+    private ResultNode toResultNode(Object value) {
+        if (engine != null) {
+            value = engine.format(value);
+        }
+        if (value == null) {
+            return ResultNode.NOOP;
+        }
+        if (value == Result.NOT_FOUND) {
+            return notFound;
+        }
+        Class<?> type = value.getClass();
+        TypeProfile profile = this.profile;
+        if (profile == null || profile.type != type) {
+            profile = new TypeProfile(type, TypedResultNodes.Kind.of(type));
+            this.profile = profile;
+        }
+        return TypedResultNodes.create(profile.kind, value, escaper, escapesDigits);
+    }
+
+    static final class TypeProfile {
+
+        final Class<?> type;
+        final TypedResultNodes.Kind kind;
+
+        TypeProfile(Class<?> type, TypedResultNodes.Kind kind) {
+            this.type = type;
+            this.kind = kind;
+        }
+
+    }
+
+    @Override
+    public Origin getOrigin() {
+        return origin;
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        builder.append("ExpressionNode [expression=").append(expression).append("]");
+        builder.append("ExpressionNode [expression=").append(expression).append(", origin=").append(origin).append("]");
         return builder.toString();
     }
 
@@ -0,0 +1,142 @@
+package com.github.mkouba.qute;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Built-in formatters. The underlying formats are created once per locale and reused, or pooled per locale if not
+ * thread-safe.
+ */
+public final class Formatters {
+
+    private Formatters() {
+    }
+
+    /**
+     * 
+     * @param pattern
+     * @return a new formatter that uses a {@link DecimalFormat} with the given pattern
+     */
+    public static ValueFormatter<Number> number(String pattern) {
+        return number(locale -> new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale)));
+    }
+
+    /**
+     * 
+     * @param factory
+     * @return a new formatter that uses the {@link NumberFormat} created by the given factory
+     */
+    public static ValueFormatter<Number> number(Function<Locale, NumberFormat> factory) {
+        return new NumberFormatter(factory);
+    }
+
+    /**
+     * 
+     * @param pattern
+     * @return a new formatter that uses a {@link DateTimeFormatter} with the given pattern
+     */
+    public static ValueFormatter<TemporalAccessor> temporal(String pattern) {
+        return temporal(locale -> DateTimeFormatter.ofPattern(pattern, locale));
+    }
+
+    /**
+     * 
+     * @param factory
+     * @return a new formatter that uses the {@link DateTimeFormatter} created by the given factory
+     */
+    public static ValueFormatter<TemporalAccessor> temporal(Function<Locale, DateTimeFormatter> factory) {
+        Map<Locale, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+        // DateTimeFormatter is immutable and thread-safe
+        return (value, locale) -> formatters.computeIfAbsent(locale, factory).format(value);
+    }
+
+    /**
+     * {@link NumberFormat} is not thread-safe. Instead of a format per thread, which does not work well with virtual
+     * threads, the formats are pooled per locale. A format is cloned from the prototype created by the factory if no idle
+     * format is available.
+     */
+    static final class NumberFormatter implements ValueFormatter<Number> {
+
+        // The max number of idle formats per locale
+        static final int MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+        private final Function<Locale, NumberFormat> factory;
+        private final Map<Locale, Pool> pools;
+
+        NumberFormatter(Function<Locale, NumberFormat> factory) {
+            this.factory = factory;
+            this.pools = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public String format(Number value, Locale locale) {
+            Pool pool = pools.computeIfAbsent(locale, l -> new Pool(factory.apply(l)));
+            State state = pool.checkout();
+            try {
+                // Reuse the buffer - the formatted string is the only allocation
+                state.buffer.setLength(0);
+                return state.format.format(value, state.buffer, state.position).toString();
+            } finally {
+                pool.release(state);
+            }
+        }
+
+        static final class Pool {
+
+            // Never used for formatting, i.e. safe to clone concurrently
+            private final NumberFormat prototype;
+            private final Queue<State> idle;
+            private final AtomicInteger idleCount;
+
+            Pool(NumberFormat prototype) {
+                this.prototype = prototype;
+                this.idle = new ConcurrentLinkedQueue<>();
+                this.idleCount = new AtomicInteger();
+            }
+
+            State checkout() {
+                State state = idle.poll();
+                if (state != null) {
+                    idleCount.decrementAndGet();
+                    return state;
+                }
+                return new State((NumberFormat) prototype.clone());
+            }
+
+            void release(State state) {
+                if (idleCount.incrementAndGet() <= MAX_IDLE) {
+                    idle.offer(state);
+                } else {
+                    // Too many idle formats - discard
+                    idleCount.decrementAndGet();
+                }
+            }
+
+        }
+
+        static final class State {
+
+            final NumberFormat format;
+            final StringBuffer buffer = new StringBuffer();
+            final FieldPosition position = new FieldPosition(0);
+
+            State(NumberFormat format) {
+                this.format = format;
+            }
+
+        }
+
+    }
+
+}
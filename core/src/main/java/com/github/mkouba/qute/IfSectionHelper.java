@@ -3,6 +3,7 @@ package com.github.mkouba.qute;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -43,6 +44,26 @@ public class IfSectionHelper implements SectionHelper {
         return resolveCondition(context, blocks.iterator());
     }
 
+    /**
+     * 
+     * @return the content of the first matching block if all the conditions that need to be evaluated are literals,
+     *         {@code null} otherwise
+     */
+    List<TemplateNode> fold() {
+        for (Block block : blocks) {
+            if (block.condition == null) {
+                return block.block.nodes;
+            }
+            if (block.operator != null || block.condition.literal == null) {
+                return null;
+            }
+            if (Boolean.TRUE.equals(block.condition.literal.join())) {
+                return block.block.nodes;
+            }
+        }
+        return Collections.emptyList();
+    }
+
     private CompletionStage<ResultNode> resolveCondition(SectionResolutionContext context,
             Iterator<Block> blocks) {
         Block block = blocks.next();
@@ -116,6 +137,11 @@ public class IfSectionHelper implements SectionHelper {
             return ImmutableList.of(IF);
         }
 
+        @Override
+        public boolean changesResolutionContext() {
+            return false;
+        }
+
         @Override
         public ParametersInfo getParameters() {
             ParametersInfo.Builder builder = ParametersInfo.builder();
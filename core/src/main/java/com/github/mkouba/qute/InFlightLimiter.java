@@ -0,0 +1,109 @@
+package com.github.mkouba.qute;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of async resolver invocations that are in flight at the same time. The invocations that exceed the
+ * limit are queued and started when a previous invocation completes. No thread is ever blocked.
+ * 
+ * @see EngineBuilder#maxInFlightResolvers(int)
+ */
+final class InFlightLimiter {
+
+    private final AtomicInteger available;
+    private final Queue<Runnable> queue;
+    // The number of drain requests, only the thread that increments the value from 0 drains the queue
+    private final AtomicInteger drainRequests;
+
+    InFlightLimiter(int limit) {
+        this.available = new AtomicInteger(limit);
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.drainRequests = new AtomicInteger();
+    }
+
+    <T> CompletionStage<T> submit(Supplier<CompletionStage<T>> invocation) {
+        if (queue.isEmpty() && tryAcquire()) {
+            return invoke(invocation);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queue.add(() -> {
+            if (result.isDone()) {
+                // E.g. the rendering was cancelled
+                release();
+                return;
+            }
+            invoke(invocation).whenComplete((r, t) -> {
+                if (t != null) {
+                    result.completeExceptionally(t);
+                } else {
+                    result.complete(r);
+                }
+            });
+        });
+        // A permit might have been released before the invocation was queued
+        drain();
+        return result;
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    private <T> CompletionStage<T> invoke(Supplier<CompletionStage<T>> invocation) {
+        CompletionStage<T> stage;
+        try {
+            stage = invocation.get();
+        } catch (RuntimeException e) {
+            release();
+            return Futures.failure(e);
+        }
+        stage.whenComplete((r, t) -> release());
+        return stage;
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = available.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    private void release() {
+        available.incrementAndGet();
+        drain();
+    }
+
+    /**
+     * The queued invocations are started in a loop. An invocation that completes synchronously releases its permit while
+     * the queue is being drained, i.e. the release only increments the number of drain requests and the loop continues.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            // Another drain is in progress, possibly on the current thread
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!queue.isEmpty() && tryAcquire()) {
+                Runnable next = queue.poll();
+                if (next == null) {
+                    // Polled by another thread
+                    available.incrementAndGet();
+                    break;
+                }
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+}
@@ -1,8 +1,10 @@
 package com.github.mkouba.qute;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
@@ -12,15 +14,36 @@ public class IncludeSectionHelper implements SectionHelper {
 
     private final Supplier<Template> templateSupplier;
     private final Map<String, SectionBlock> extendingBlocks;
+    // The id of the included template or null if not known
+    final String templateId;
 
     public IncludeSectionHelper(Supplier<Template> templateSupplier, Map<String, SectionBlock> extendingBlocks) {
+        this(templateSupplier, extendingBlocks, null);
+    }
+
+    IncludeSectionHelper(Supplier<Template> templateSupplier, Map<String, SectionBlock> extendingBlocks,
+            String templateId) {
         this.templateSupplier = templateSupplier;
         this.extendingBlocks = extendingBlocks;
+        this.templateId = templateId;
     }
 
     @Override
     public CompletionStage<ResultNode> resolve(SectionResolutionContext context) {
-        return ((TemplateImpl) templateSupplier.get()).root.resolve(context.resolutionContext().createChild(extendingBlocks));
+        Supplier<Template> supplier = templateSupplier;
+        SectionNode root;
+        if (supplier instanceof LinkedTemplate) {
+            Link link = ((LinkedTemplate) supplier).link();
+            if (link.flattened != null && context.resolutionContext() instanceof ResolutionContextImpl
+                    && !((ResolutionContextImpl) context.resolutionContext()).hasExtendingBlocks()) {
+                // No block can be overriden by an outer include section
+                return context.execute(link.flattened, context.resolutionContext());
+            }
+            root = link.root;
+        } else {
+            root = ((TemplateImpl) supplier.get()).root;
+        }
+        return root.resolve(context.resolutionContext().createChild(extendingBlocks));
     }
 
     public static class Factory implements SectionHelperFactory<IncludeSectionHelper> {
@@ -30,6 +53,11 @@ public class IncludeSectionHelper implements SectionHelper {
             return ImmutableList.of("include");
         }
 
+        @Override
+        public boolean changesResolutionContext() {
+            return false;
+        }
+
         @Override
         public ParametersInfo getParameters() {
             return ParametersInfo.builder().addParameter(TEMPLATE).build();
@@ -41,20 +69,123 @@ public class IncludeSectionHelper implements SectionHelper {
             for (SectionBlock block : context.getBlocks().subList(1, context.getBlocks().size())) {
                 extendingBlocks.put(block.label, block);
             }
-            return new IncludeSectionHelper(new Supplier<Template>() {
-
-                @Override
-                public Template get() {
-                    String name = context.getParameter(TEMPLATE);
-                    Template template = context.getEngine().getTemplate(name);
-                    if (template == null) {
-                        throw new IllegalStateException("Template not found: " + name);
+            String templateId = context.getParameter(TEMPLATE);
+            return new IncludeSectionHelper(new LinkedTemplate(context.getEngine(), templateId, extendingBlocks),
+                    extendingBlocks, templateId);
+        }
+
+    }
+
+    /**
+     * The included template is looked up once and linked until a template is replaced via
+     * {@link Engine#putTemplate(String, Template)}.
+     */
+    static final class LinkedTemplate implements Supplier<Template> {
+
+        private final EngineImpl engine;
+        private final String templateId;
+        private final Map<String, SectionBlock> extendingBlocks;
+        private volatile Link link;
+
+        LinkedTemplate(EngineImpl engine, String templateId, Map<String, SectionBlock> extendingBlocks) {
+            this.engine = engine;
+            this.templateId = templateId;
+            this.extendingBlocks = extendingBlocks;
+        }
+
+        @Override
+        public Template get() {
+            return link().template;
+        }
+
+        Link link() {
+            Link link = this.link;
+            int version = engine.getTemplatesVersion();
+            if (link == null || link.version != version) {
+                Template template = engine.getTemplate(templateId);
+                if (template == null) {
+                    throw new IllegalStateException("Template not found: " + templateId);
+                }
+                SectionNode root = ((TemplateImpl) template).root;
+                link = new Link(template, root, engine.isFlattenIncludes() ? flatten(root, extendingBlocks) : null,
+                        version);
+                this.link = link;
+            }
+            return link;
+        }
+
+    }
+
+    static final class Link {
+
+        final Template template;
+        final SectionNode root;
+        // The main block of the root with all insert sections replaced, or null if it cannot be flattened
+        final SectionBlock flattened;
+        final int version;
+
+        Link(Template template, SectionNode root, SectionBlock flattened, int version) {
+            this.template = template;
+            this.root = root;
+            this.flattened = flattened;
+            this.version = version;
+        }
+
+    }
+
+    /**
+     * 
+     * @param root
+     * @param extendingBlocks
+     * @return a new block with all insert sections replaced, or {@code null} if the root cannot be flattened
+     */
+    static SectionBlock flatten(SectionNode root, Map<String, SectionBlock> extendingBlocks) {
+        SectionBlock main = root.blocks.get(0);
+        SectionBlock.Builder builder = SectionBlock.builder(main.id).setLabel(main.label);
+        if (!inline(main.nodes, extendingBlocks, builder, new HashSet<>())) {
+            return null;
+        }
+        return builder.build();
+    }
+
+    private static boolean inline(List<TemplateNode> nodes, Map<String, SectionBlock> extendingBlocks,
+            SectionBlock.Builder builder, Set<String> inserting) {
+        for (TemplateNode node : nodes) {
+            if (node instanceof SectionNode) {
+                SectionNode section = (SectionNode) node;
+                if (section.helper instanceof InsertSectionHelper) {
+                    InsertSectionHelper insert = (InsertSectionHelper) section.helper;
+                    SectionBlock block = extendingBlocks.get(insert.name);
+                    if (block == null) {
+                        block = insert.defaultBlock;
+                    }
+                    if (!inserting.add(insert.name) || !inline(block.nodes, extendingBlocks, builder, inserting)) {
+                        return false;
                     }
-                    return template;
+                    inserting.remove(insert.name);
+                    continue;
                 }
-            }, extendingBlocks);
+                if (!isSelfContained(section)) {
+                    return false;
+                }
+            }
+            builder.addNode(node);
         }
+        return true;
+    }
 
+    private static boolean isSelfContained(SectionNode section) {
+        if (section.helper instanceof InsertSectionHelper || section.helper instanceof IncludeSectionHelper) {
+            return false;
+        }
+        for (SectionBlock block : section.blocks) {
+            for (TemplateNode node : block.nodes) {
+                if (node instanceof SectionNode && !isSelfContained((SectionNode) node)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
 }
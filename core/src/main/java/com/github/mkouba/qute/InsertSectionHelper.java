@@ -5,8 +5,8 @@ import java.util.concurrent.CompletionStage;
 
 public class InsertSectionHelper implements SectionHelper {
 
-    private final String name;
-    private final SectionBlock defaultBlock;
+    final String name;
+    final SectionBlock defaultBlock;
 
     public InsertSectionHelper(String name, SectionBlock defaultBlock) {
         this.name = name;
@@ -30,6 +30,11 @@ public class InsertSectionHelper implements SectionHelper {
             return ImmutableList.of("insert");
         }
 
+        @Override
+        public boolean changesResolutionContext() {
+            return false;
+        }
+
         @Override
         public ParametersInfo getParameters() {
             return ParametersInfo.builder().addParameter("name").build();
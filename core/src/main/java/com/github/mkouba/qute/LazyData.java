@@ -0,0 +1,163 @@
+package com.github.mkouba.qute;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The data of a single rendering. The value of a computed or async entry is only obtained when an expression references
+ * the entry for the first time and then reused until the rendering is finished. A {@code null} value and a failure are
+ * reused as well.
+ * 
+ * @see TemplateInstance#computedData(String, Supplier)
+ * @see TemplateInstance#asyncData(String, Supplier)
+ */
+final class LazyData extends AbstractMap<String, Object> {
+
+    // ConcurrentHashMap does not allow null values
+    private static final Object NULL = new Object();
+
+    private final Map<String, Object> entries;
+    private final Map<String, Object> computed;
+
+    /**
+     * 
+     * @param entries the values, {@link Computed} and {@link Async} entries
+     */
+    LazyData(Map<String, Object> entries) {
+        this.entries = entries;
+        this.computed = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 
+     * @param key
+     * @return {@code true} if the value of the given key must be obtained via {@link #getAsync(String)}
+     */
+    boolean isAsync(String key) {
+        return entries.get(key) instanceof Async;
+    }
+
+    /**
+     * 
+     * @param key
+     * @return the stage of an async entry or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    CompletionStage<Object> getAsync(String key) {
+        Object entry = entries.get(key);
+        if (entry instanceof Async) {
+            return (CompletionStage<Object>) computed.computeIfAbsent(key, k -> {
+                try {
+                    return ((Async) entry).supplier.get();
+                } catch (RuntimeException e) {
+                    CompletableFuture<Object> failure = new CompletableFuture<>();
+                    failure.completeExceptionally(e);
+                    return failure;
+                }
+            });
+        }
+        return null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object entry = entries.get(key);
+        if (entry instanceof Computed) {
+            Object value = computed.computeIfAbsent((String) key, k -> {
+                try {
+                    Object result = ((Computed) entry).supplier.get();
+                    return result != null ? result : NULL;
+                } catch (RuntimeException e) {
+                    return new Failure(e);
+                }
+            });
+            if (value == NULL) {
+                return null;
+            } else if (value instanceof Failure) {
+                throw ((Failure) value).exception;
+            }
+            return value;
+        } else if (entry instanceof Async) {
+            return getAsync((String) key);
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // All entries are computed
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<String> keys = entries.keySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        String key = keys.next();
+                        return new SimpleImmutableEntry<>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    static final class Computed {
+
+        final Supplier<?> supplier;
+
+        Computed(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+    }
+
+    private static final class Failure {
+
+        final RuntimeException exception;
+
+        Failure(RuntimeException exception) {
+            this.exception = exception;
+        }
+
+    }
+
+    static final class Async {
+
+        final Supplier<? extends CompletionStage<?>> supplier;
+
+        Async(Supplier<? extends CompletionStage<?>> supplier) {
+            this.supplier = supplier;
+        }
+
+    }
+
+}
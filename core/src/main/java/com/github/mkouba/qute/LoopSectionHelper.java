@@ -5,9 +5,11 @@ import static com.github.mkouba.qute.Parameter.EMPTY;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
@@ -21,8 +23,21 @@ public class LoopSectionHelper implements SectionHelper {
     private final boolean noAlias;
     private final String alias;
     private final Expression iterable;
+    private final Set<String> properties;
 
     public LoopSectionHelper(String alias, String iterable) {
+        this(alias, iterable, Collections.emptySet());
+    }
+
+    /**
+     * 
+     * @param alias
+     * @param iterable
+     * @param properties the properties of the iteration element that should be resolved in bulk if possible
+     * @see BulkValueResolver
+     */
+    LoopSectionHelper(String alias, String iterable, Set<String> properties) {
+        this.properties = properties;
         if (alias.equals(Parameter.EMPTY)) {
             this.noAlias = true;
             this.alias = null;
@@ -33,12 +48,9 @@ public class LoopSectionHelper implements SectionHelper {
         this.iterable = Expression.parse(Objects.requireNonNull(iterable));
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public CompletionStage<ResultNode> resolve(SectionResolutionContext context) {
         return context.resolutionContext().evaluate(iterable).thenCompose(it -> {
-            // TODO ideally, we should not block here but we still need to retain the order of results 
-            List<CompletionStage<ResultNode>> results = new ArrayList<>();
             Iterator<?> iterator;
             if (it instanceof Iterable) {
                 iterator = ((Iterable<?>) it).iterator();
@@ -49,39 +61,63 @@ public class LoopSectionHelper implements SectionHelper {
             } else {
                 throw new IllegalStateException("Cannot iterate over: " + it);
             }
-            int idx = 0;
+            List<Object> elements = new ArrayList<>();
             while (iterator.hasNext()) {
-                results.add(nextElement(iterator.next(), idx++, iterator.hasNext(), context));
+                elements.add(iterator.next());
             }
-            if (results.isEmpty()) {
+            if (elements.isEmpty()) {
                 return CompletableFuture.completedFuture(ResultNode.NOOP);
             }
-            CompletableFuture<ResultNode> result = new CompletableFuture<>();
-            CompletableFuture<ResultNode>[] all = new CompletableFuture[results.size()];
-            idx = 0;
-            for (CompletionStage<ResultNode> r : results) {
-                all[idx++] = r.toCompletableFuture();
+            if (!properties.isEmpty() && elements.size() > 1
+                    && context.resolutionContext() instanceof ResolutionContextImpl) {
+                // Resolve the properties of all elements in bulk first
+                return ((ResolutionContextImpl) context.resolutionContext()).evaluateAll(elements, properties)
+                        .thenCompose(prefetched -> resolveElements(elements, prefetched, context));
             }
-            CompletableFuture
-                    .allOf(all)
-                    .whenComplete((v, t) -> {
-                        if (t != null) {
-                            result.completeExceptionally(t);
-                        } else {
-                            result.complete(new MultiResultNode(all));
-                        }
-                    });
-            return result;
+            return resolveElements(elements, Collections.emptyMap(), context);
         });
     }
 
+    @SuppressWarnings("unchecked")
+    private CompletionStage<ResultNode> resolveElements(List<Object> elements, Map<String, List<Object>> prefetched,
+            SectionResolutionContext context) {
+        // TODO ideally, we should not block here but we still need to retain the order of results 
+        CompletableFuture<ResultNode>[] all = new CompletableFuture[elements.size()];
+        for (int idx = 0; idx < all.length; idx++) {
+            if (context.resolutionContext().isCancelled()) {
+                // Do not start the remaining iterations
+                return Futures.failure(Rendering.cancelled());
+            }
+            all[idx] = nextElement(elements.get(idx), idx, idx < all.length - 1, prefetched, context).toCompletableFuture();
+        }
+        CompletableFuture<ResultNode> result = new CompletableFuture<>();
+        CompletableFuture
+                .allOf(all)
+                .whenComplete((v, t) -> {
+                    if (t != null) {
+                        result.completeExceptionally(t);
+                    } else {
+                        result.complete(new MultiResultNode(all));
+                    }
+                });
+        return result;
+    }
+
     CompletionStage<ResultNode> nextElement(Object element, int index, boolean hasNext, SectionResolutionContext context) {
+        return nextElement(element, index, hasNext, Collections.emptyMap(), context);
+    }
+
+    CompletionStage<ResultNode> nextElement(Object element, int index, boolean hasNext,
+            Map<String, List<Object>> prefetched, SectionResolutionContext context) {
         AtomicReference<ResolutionContext> resolutionContextHolder = new AtomicReference<>();
         List<NamespaceResolver> namespaceResolvers = noAlias
                 ? Collections.singletonList(new IterationMetaResolver(index, hasNext))
                 : ImmutableList.of(new IterationMetaResolver(index, hasNext),
                         new AliasResolver(alias, resolutionContextHolder));
-        ResolutionContext child = context.resolutionContext().createChild(element, namespaceResolvers);
+        ResolutionContext child = prefetched.isEmpty()
+                ? context.resolutionContext().createChild(element, namespaceResolvers)
+                : ((ResolutionContextImpl) context.resolutionContext()).createChild(element, namespaceResolvers, prefetched,
+                        index);
         resolutionContextHolder.set(child);
         return context.execute(child);
     }
@@ -106,7 +142,34 @@ public class LoopSectionHelper implements SectionHelper {
             if (iterable == null) {
                 iterable = ValueResolvers.THIS;
             }
-            return new LoopSectionHelper(context.getParameter("alias"), iterable);
+            String alias = context.getParameter("alias");
+            Set<String> properties = new LinkedHashSet<>();
+            collectProperties(alias.equals(EMPTY) ? null : alias, context.getBlocks().get(0).nodes, properties);
+            return new LoopSectionHelper(alias, iterable, properties);
+        }
+
+        /**
+         * Collect the first parts of the expressions that reference the iteration element, including the expressions
+         * in nested sections. Nested loops are skipped.
+         */
+        private void collectProperties(String alias, List<TemplateNode> nodes, Set<String> properties) {
+            for (TemplateNode node : nodes) {
+                if (node instanceof ExpressionNode) {
+                    Expression expression = ((ExpressionNode) node).expression;
+                    // Both {name} and {alias:name} are resolved against the iteration element
+                    if (expression.literal == null && (expression.namespace == null || expression.namespace.equals(alias))
+                            && !expression.parts.isEmpty()) {
+                        String property = expression.parts.get(0);
+                        if (property.indexOf('(') == -1 && !property.equals(ValueResolvers.THIS)) {
+                            properties.add(property);
+                        }
+                    }
+                } else if (node instanceof SectionNode && !(((SectionNode) node).helper instanceof LoopSectionHelper)) {
+                    for (SectionBlock block : ((SectionNode) node).blocks) {
+                        collectProperties(alias, block.nodes, properties);
+                    }
+                }
+            }
         }
 
     }
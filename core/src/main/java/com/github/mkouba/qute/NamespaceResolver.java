@@ -1,10 +1,11 @@
 package com.github.mkouba.qute;
 
-import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
+import com.github.mkouba.qute.Results.Result;
+
 /*
  * Namespace resolver.
  */
@@ -27,35 +28,77 @@ public interface NamespaceResolver extends Resolver {
     class Builder {
 
         private final String namespace;
-        private Function<EvalContext, CompletionStage<Object>> resolve;
+        private Function<EvalContext, Object> resolveSync;
+        private Function<EvalContext, CompletionStage<Object>> resolveAsync;
+        private boolean pure;
 
         Builder(String namespace) {
             this.namespace = namespace;
         }
 
+        /**
+         * The function may return {@link Result#ASYNC} if an async function is also set.
+         * 
+         * @param func
+         * @return self
+         * @see Resolver#resolveSync(EvalContext)
+         */
         public Builder resolve(Function<EvalContext, Object> func) {
-            this.resolve = ctx -> CompletableFuture.completedFuture(func.apply(ctx));
+            this.resolveSync = func;
             return this;
         }
 
+        /**
+         * If a sync function is also set then the async function is only used if the sync function returns
+         * {@link Result#ASYNC}. However, it must be able to handle all cases.
+         * 
+         * @param func
+         * @return self
+         */
         public Builder resolveAsync(Function<EvalContext, CompletionStage<Object>> func) {
-            this.resolve = func;
+            this.resolveAsync = func;
+            return this;
+        }
+
+        /**
+         * 
+         * @return self
+         * @see Resolver#isPure()
+         */
+        public Builder pure() {
+            this.pure = true;
             return this;
         }
 
         public NamespaceResolver build() {
-            Objects.requireNonNull(resolve);
+            if (resolveSync == null && resolveAsync == null) {
+                throw new IllegalStateException("No resolve function set");
+            }
+            Function<EvalContext, Object> resolveSync = this.resolveSync;
+            Function<EvalContext, CompletionStage<Object>> resolveAsync = this.resolveAsync;
+            boolean pure = this.pure;
             return new NamespaceResolver() {
 
                 @Override
                 public CompletionStage<Object> resolve(EvalContext context) {
-                    return resolve.apply(context);
+                    return resolveAsync != null ? resolveAsync.apply(context)
+                            : CompletableFuture.completedFuture(resolveSync.apply(context));
+                }
+
+                @Override
+                public Object resolveSync(EvalContext context) {
+                    return resolveSync != null ? resolveSync.apply(context) : Result.ASYNC;
                 }
 
                 @Override
                 public String getNamespace() {
                     return namespace;
                 }
+
+                @Override
+                public boolean isPure() {
+                    return pure;
+                }
             };
         }
 
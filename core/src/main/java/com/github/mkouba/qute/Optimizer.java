@@ -0,0 +1,59 @@
+package com.github.mkouba.qute;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simplifies the content of a section block when the block is built by the parser:
+ * <ul>
+ * <li>literal expressions such as <code>{'foo'}</code> are rendered into text,</li>
+ * <li>{@code if} sections with literal conditions such as <code>{#if true}</code> are replaced with the content of the
+ * matching block,</li>
+ * <li>built-in sections with no content are removed,</li>
+ * <li>adjacent text nodes are merged and empty text nodes are removed.</li>
+ * </ul>
+ * Nested blocks are always built first, i.e. the content of a nested section is already optimized.
+ */
+final class Optimizer {
+
+    private Optimizer() {
+    }
+
+    static List<TemplateNode> optimize(List<TemplateNode> nodes) {
+        List<TemplateNode> optimized = new ArrayList<>(nodes.size());
+        for (TemplateNode node : nodes) {
+            add(optimized, node);
+        }
+        return optimized;
+    }
+
+    private static void add(List<TemplateNode> nodes, TemplateNode node) {
+        if (node instanceof ExpressionNode) {
+            TextNode text = ((ExpressionNode) node).toTextNode();
+            if (text != null) {
+                node = text;
+            }
+        } else if (node instanceof SectionNode) {
+            List<TemplateNode> folded = ((SectionNode) node).fold();
+            if (folded != null) {
+                for (TemplateNode foldedNode : folded) {
+                    add(nodes, foldedNode);
+                }
+                return;
+            }
+        }
+        if (node instanceof TextNode) {
+            TextNode text = (TextNode) node;
+            if (text.value.isEmpty()) {
+                return;
+            }
+            int lastIdx = nodes.size() - 1;
+            if (lastIdx >= 0 && nodes.get(lastIdx) instanceof TextNode) {
+                nodes.set(lastIdx, new TextNode(((TextNode) nodes.get(lastIdx)).value + text.value));
+                return;
+            }
+        }
+        nodes.add(node);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.github.mkouba.qute;
+
+/**
+ * Represents the origin of a template node, i.e. the position of the corresponding tag in the template source.
+ */
+public final class Origin {
+
+    /**
+     * The id of the template or {@code null} if the template was not loaded by the engine.
+     *
+     * @see Engine#getTemplate(String)
+     */
+    public final String templateId;
+
+    /**
+     * One-based line number.
+     */
+    public final int line;
+
+    /**
+     * One-based position of the tag start delimiter within the line.
+     */
+    public final int lineCharacter;
+
+    public Origin(String templateId, int line, int lineCharacter) {
+        this.templateId = templateId;
+        this.line = line;
+        this.lineCharacter = lineCharacter;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(templateId != null ? templateId : "<unknown>").append(":").append(line).append(":")
+                .append(lineCharacter);
+        return builder.toString();
+    }
+
+}
@@ -1,6 +1,5 @@
 package com.github.mkouba.qute;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayDeque;
@@ -8,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionStage;
@@ -26,6 +26,10 @@ class Parser {
     private static final Logger LOGGER = LoggerFactory.getLogger(Parser.class);
 
     private final EngineImpl engine;
+    private final String templateId;
+
+    // Elements whose content is never collapsed
+    private static final String[] RAW_ELEMENTS = { "pre", "textarea", "script" };
 
     private final char startDelimiter = '{';
     private final char endDelimiter = '}';
@@ -37,14 +41,24 @@ class Parser {
     private final Deque<ParametersInfo> paramsStack;
     private int sectionBlockIdx;
     private boolean ignoreContent;
-
-    public Parser(EngineImpl engine) {
+    private int line;
+    private int lineCharacter;
+    private Origin tagOrigin;
+    private final Map<String, String> parameterDeclarations;
+    private final List<Expression> expressions;
+    private final boolean removeStandaloneLines;
+    private final boolean collapseWhitespace;
+    // The raw element the collapsed text is currently inside of
+    private String rawElement;
+
+    public Parser(EngineImpl engine, String templateId) {
         this.engine = engine;
+        this.templateId = templateId;
         this.state = State.TEXT;
         this.buffer = new StringBuilder();
         this.sectionStack = new ArrayDeque<>();
         this.sectionStack
-                .addFirst(SectionNode.builder().setEngine(engine).setHelperFactory(new SectionHelperFactory<SectionHelper>() {
+                .addFirst(SectionNode.builder().setEngine(engine).setOrigin(new Origin(templateId, 1, 1)).setHelperFactory(new SectionHelperFactory<SectionHelper>() {
                     @Override
                     public SectionHelper initialize(SectionInitContext context) {
                         return new SectionHelper() {
@@ -62,15 +76,33 @@ class Parser {
         this.sectionBlockIdx = 0;
         this.paramsStack = new ArrayDeque<>();
         this.paramsStack.addFirst(ParametersInfo.EMPTY);
+        this.line = 1;
+        this.lineCharacter = 0;
+        this.parameterDeclarations = new LinkedHashMap<>();
+        this.expressions = new ArrayList<>();
+        this.removeStandaloneLines = engine.isRemoveStandaloneLines();
+        this.collapseWhitespace = engine.isCollapseWhitespace(templateId);
     }
 
     Template parse(Reader reader) {
         long start = System.currentTimeMillis();
-        reader = ensureBufferedReader(reader);
         try {
-            int val;
-            while ((val = reader.read()) != -1) {
-                processCharacter((char) val);
+            String content = read(reader);
+            // The end of the current standalone line
+            int standaloneEnd = -1;
+            for (int i = 0; i < content.length(); i++) {
+                char character = content.charAt(i);
+                if (removeStandaloneLines && lineCharacter == 0 && state == State.TEXT) {
+                    standaloneEnd = standaloneLineEnd(content, i);
+                }
+                lineCharacter++;
+                if (i >= standaloneEnd || state != State.TEXT || !Character.isWhitespace(character)) {
+                    processCharacter(character);
+                }
+                if (character == '\n') {
+                    line++;
+                    lineCharacter = 0;
+                }
             }
 
             if (buffer.length() > 0) {
@@ -93,7 +125,7 @@ class Parser {
                 throw new IllegalStateException("No root section part found!");
             }
             root.addBlock(part.build());
-            Template template = new TemplateImpl(engine, root.build());
+            Template template = new TemplateImpl(engine, root.build(), parameterDeclarations, expressions);
             LOGGER.debug("Parsing finished in {} ms", System.currentTimeMillis() - start);
             return template;
 
@@ -120,6 +152,7 @@ class Parser {
 
     private void text(char character) {
         if (character == startDelimiter) {
+            tagOrigin = new Origin(templateId, line, lineCharacter);
             state = State.TAG_CANDIDATE;
         } else {
             buffer.append(character);
@@ -152,7 +185,7 @@ class Parser {
     private void flushText() {
         if (buffer.length() > 0 && !ignoreContent) {
             SectionBlock.Builder block = sectionBlockStack.peek();
-            block.addNode(new TextNode(buffer.toString()));
+            block.addNode(new TextNode(collapseWhitespace ? collapse(buffer) : buffer.toString()));
         }
         this.buffer = new StringBuilder();
     }
@@ -176,7 +209,8 @@ class Parser {
             // TODO main constant
             sectionBlockStack.addFirst(SectionBlock.builder("main").setLabel("main"));
             processParams("main", iter);
-            sectionStack.addFirst(SectionNode.builder().setEngine(engine).setHelperFactory(factory));
+            sectionStack.addFirst(
+                    SectionNode.builder().setEngine(engine).setHelperFactory(factory).setName(helperName).setOrigin(tagOrigin));
 
         } else if (content.charAt(0) == Tag.SECTION_BLOCK.getCommand()) {
             if (!ignoreContent) {
@@ -211,12 +245,39 @@ class Parser {
                 }
                 sectionBlockStack.peek().addNode(section.build());
             }
+        } else if (content.charAt(0) == Tag.PARAMETER_DECLARATION.getCommand()) {
+            // E.g. {@org.acme.Item item}
+            Iterator<String> iter = splitSectionParams(content.substring(1));
+            String type = iter.hasNext() ? iter.next() : null;
+            String name = iter.hasNext() ? iter.next() : null;
+            if (type == null || name == null || iter.hasNext()) {
+                throw new IllegalStateException("Invalid parameter declaration: " + content + " [" + tagOrigin + "]");
+            }
+            if (parameterDeclarations.putIfAbsent(name, type) != null) {
+                throw new IllegalStateException("Parameter " + name + " is already declared [" + tagOrigin + "]");
+            }
         } else if (content.charAt(0) != '!') {
-            sectionBlockStack.peek().addNode(new ExpressionNode(content));
+            ExpressionNode node = new ExpressionNode(content, tagOrigin, engine, isNested());
+            expressions.add(node.expression);
+            sectionBlockStack.peek().addNode(node);
         }
         this.buffer = new StringBuilder();
     }
 
+    /**
+     * 
+     * @return {@code true} if the current section or any of its parents changes the resolution context
+     */
+    private boolean isNested() {
+        SectionNode.Builder root = sectionStack.peekLast();
+        for (SectionNode.Builder section : sectionStack) {
+            if (section != root && section.getHelperFactory().changesResolutionContext()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void processParams(String label, Iterator<String> iter) {
         Map<String, String> params = new HashMap<>();
         List<Parameter> factoryParams = paramsStack.peek().get(label);
@@ -300,10 +361,104 @@ class Parser {
         return -1;
     }
 
-    private Reader ensureBufferedReader(Reader reader) {
-        return reader instanceof BufferedReader ? reader
-                : new BufferedReader(
-                        reader);
+    private String read(Reader reader) throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] chars = new char[1024];
+        int count;
+        while ((count = reader.read(chars)) != -1) {
+            content.append(chars, 0, count);
+        }
+        return content.toString();
+    }
+
+    /**
+     *
+     * @param content
+     * @param start the index of the first character of a line
+     * @return the index after the line separator if the line contains only whitespace and at least one section tag,
+     *         section block tag, parameter declaration or comment; <code>-1</code> otherwise
+     */
+    static int standaloneLineEnd(String content, int start) {
+        int tags = 0;
+        int idx = start;
+        while (idx < content.length()) {
+            char character = content.charAt(idx);
+            if (character == '\n') {
+                return tags > 0 ? idx + 1 : -1;
+            } else if (character == '{') {
+                if (idx + 1 == content.length() || !isStandaloneTag(content.charAt(idx + 1))) {
+                    // Expression, literal or whitespace after the start delimiter
+                    return -1;
+                }
+                // Find the end of the tag - a tag must not span multiple lines
+                idx++;
+                while (idx < content.length() && content.charAt(idx) != '}') {
+                    if (content.charAt(idx) == '\n') {
+                        return -1;
+                    }
+                    idx++;
+                }
+                if (idx == content.length()) {
+                    return -1;
+                }
+                tags++;
+            } else if (!Character.isWhitespace(character)) {
+                return -1;
+            }
+            idx++;
+        }
+        // The last line
+        return tags > 0 ? idx : -1;
+    }
+
+    static boolean isStandaloneTag(char command) {
+        return command == Tag.SECTION.getCommand() || command == Tag.SECTION_END.getCommand()
+                || command == Tag.SECTION_BLOCK.getCommand() || command == Tag.PARAMETER_DECLARATION.getCommand()
+                || command == '!';
+    }
+
+    private String collapse(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        int length = text.length();
+        int idx = 0;
+        while (idx < length) {
+            char character = text.charAt(idx);
+            if (rawElement != null) {
+                if (character == '<' && isElementStart(text, idx + 1, "/" + rawElement)) {
+                    rawElement = null;
+                }
+                builder.append(character);
+                idx++;
+            } else if (Character.isWhitespace(character)) {
+                boolean lineSeparator = false;
+                while (idx < length && Character.isWhitespace(text.charAt(idx))) {
+                    lineSeparator |= text.charAt(idx) == '\n';
+                    idx++;
+                }
+                builder.append(lineSeparator ? '\n' : ' ');
+            } else {
+                if (character == '<') {
+                    for (String element : RAW_ELEMENTS) {
+                        if (isElementStart(text, idx + 1, element)) {
+                            rawElement = element;
+                            break;
+                        }
+                    }
+                }
+                builder.append(character);
+                idx++;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isElementStart(CharSequence text, int start, String name) {
+        int end = start + name.length();
+        if (end > text.length() || !name.equalsIgnoreCase(text.subSequence(start, end).toString())) {
+            return false;
+        }
+        // E.g. <pre> or <pre class="foo"> but not <preview>
+        return end == text.length() || text.charAt(end) == '>' || Character.isWhitespace(text.charAt(end));
     }
 
     static Iterator<String> splitSectionParams(String content) {
@@ -371,6 +526,7 @@ class Parser {
         SECTION('#'),
         SECTION_END('/'),
         SECTION_BLOCK(':'),
+        PARAMETER_DECLARATION('@'),
         ;
 
         private final Character command;
@@ -0,0 +1,200 @@
+package com.github.mkouba.qute;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the wall-time and the number of invocations for each expression and section node rendered by an engine.
+ * <p>
+ * Note that the time measured for a section node is inclusive, i.e. it contains the time spent resolving the nested nodes.
+ * Also the time measured for an async resolution includes the time spent waiting for the result.
+ * </p>
+ *
+ * @see EngineBuilder#enableProfiling()
+ * @see Engine#getProfiler()
+ */
+public final class Profiler {
+
+    private final ConcurrentMap<TemplateNode, Entry> entries;
+
+    Profiler() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     *
+     * @return the entries sorted by the total time, the most expensive entry is the first one
+     */
+    public List<Entry> getEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Discard all the data collected so far.
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     *
+     * @return the flat view of all entries, sorted by the total time
+     */
+    public String getFlatReport() {
+        List<Entry> sorted = getEntries();
+        StringBuilder builder = new StringBuilder();
+        builder.append("Profile [entries=").append(sorted.size()).append("]\n");
+        for (Entry entry : sorted) {
+            appendEntry(builder, entry, entry.description, 1);
+        }
+        return builder.toString();
+    }
+
+    /**
+     *
+     * @param template
+     * @return the tree view of the nodes of the given template
+     */
+    public String getTreeReport(Template template) {
+        SectionNode root = ((TemplateImpl) template).root;
+        StringBuilder builder = new StringBuilder();
+        Entry rootEntry = entries.get(root);
+        builder.append("Profile [template=").append(root.getOrigin().templateId != null ? root.getOrigin().templateId : "<unknown>")
+                .append(", invocations=").append(rootEntry != null ? rootEntry.getInvocations() : 0).append(", total=")
+                .append(formatNanos(rootEntry != null ? rootEntry.getTotalNanos() : 0)).append("]\n");
+        appendChildren(builder, root, 1);
+        return builder.toString();
+    }
+
+    CompletionStage<ResultNode> profile(TemplateNode node, long start, CompletionStage<ResultNode> result) {
+        result.whenComplete((r, t) -> record(node, System.nanoTime() - start));
+        return result;
+    }
+
+    void record(TemplateNode node, long nanos) {
+        Entry entry = entries.get(node);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(node, Entry::new);
+        }
+        entry.invocations.increment();
+        entry.totalNanos.add(nanos);
+    }
+
+    private void appendChildren(StringBuilder builder, SectionNode section, int level) {
+        for (SectionBlock block : section.blocks) {
+            for (TemplateNode node : block.nodes) {
+                if (node instanceof TextNode) {
+                    continue;
+                }
+                Entry entry = entries.get(node);
+                if (entry != null) {
+                    appendEntry(builder, entry, describe(node), level);
+                } else {
+                    indent(builder, level);
+                    builder.append(describe(node)).append(" [").append(node.getOrigin()).append("] not rendered\n");
+                }
+                if (node instanceof SectionNode) {
+                    appendChildren(builder, (SectionNode) node, level + 1);
+                }
+            }
+        }
+    }
+
+    private void appendEntry(StringBuilder builder, Entry entry, String description, int level) {
+        indent(builder, level);
+        builder.append(description).append(" [").append(entry.origin).append("] invocations=")
+                .append(entry.getInvocations()).append(", total=").append(formatNanos(entry.getTotalNanos()))
+                .append(", avg=").append(formatNanos(entry.getAverageNanos())).append("\n");
+    }
+
+    private static void indent(StringBuilder builder, int level) {
+        for (int i = 0; i < level; i++) {
+            builder.append("  ");
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
+    }
+
+    static String describe(TemplateNode node) {
+        if (node instanceof ExpressionNode) {
+            return "{" + ((ExpressionNode) node).value + "}";
+        } else if (node instanceof SectionNode) {
+            String name = ((SectionNode) node).name;
+            return name != null ? "{#" + name + "}" : "<root>";
+        }
+        return node.toString();
+    }
+
+    /**
+     * Profiling data of a single template node.
+     */
+    public static final class Entry {
+
+        private final Origin origin;
+        private final String description;
+        private final LongAdder invocations;
+        private final LongAdder totalNanos;
+
+        Entry(TemplateNode node) {
+            this.origin = node.getOrigin();
+            this.description = describe(node);
+            this.invocations = new LongAdder();
+            this.totalNanos = new LongAdder();
+        }
+
+        /**
+         *
+         * @return the origin of the node
+         */
+        public Origin getOrigin() {
+            return origin;
+        }
+
+        /**
+         *
+         * @return the description of the node, e.g. {@code {item.name}} or {@code {#for}}
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getTotalTime(TimeUnit unit) {
+            return unit.convert(getTotalNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getAverageNanos() {
+            long count = getInvocations();
+            return count > 0 ? getTotalNanos() / count : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Entry [description=").append(description).append(", origin=").append(origin)
+                    .append(", invocations=").append(getInvocations()).append(", totalNanos=").append(getTotalNanos())
+                    .append("]");
+            return builder.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.mkouba.qute;
+
+import java.util.Objects;
+
+/**
+ * Marks a value that should never be escaped, e.g. a fragment of markup produced by a trusted resolver.
+ * 
+ * @see Escaper
+ * @see ValueResolvers#rawResolver()
+ */
+public final class RawString {
+
+    private final String value;
+
+    public RawString(String value) {
+        this.value = Objects.requireNonNull(value);
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return value.equals(((RawString) obj).value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+}
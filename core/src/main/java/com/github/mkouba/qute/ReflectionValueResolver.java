@@ -0,0 +1,300 @@
+package com.github.mkouba.qute;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.mkouba.qute.Results.Result;
+
+/**
+ * This resolver can be used if no value resolvers can be generated for the data classes, e.g. outside Quarkus.
+ * <p>
+ * The public members of a base class are analyzed when the class is encountered for the first time. Public instance
+ * fields and public instance methods are accessed through method handles that are cached per class, i.e. no reflection
+ * is used to access the values afterwards. A getter also matches the property name, e.g. {@code getName()} matches
+ * "name". The resolver has a low priority so that all other resolvers are used first.
+ * </p>
+ *
+ * @see ValueResolvers#reflectionResolver()
+ */
+public final class ReflectionValueResolver implements ValueResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReflectionValueResolver.class);
+
+    public static final int PRIORITY = DEFAULT_PRIORITY - 1;
+
+    private static final String GET_PREFIX = "get";
+    private static final String IS_PREFIX = "is";
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Class<?>[] NO_PARAMS = new Class<?>[0];
+
+    // Primitive param type -> wrappers of the values that can be passed, i.e. including widening primitive conversions
+    private static final Map<Class<?>, List<Class<?>>> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put(boolean.class, Arrays.asList(Boolean.class));
+        PRIMITIVES.put(byte.class, Arrays.asList(Byte.class));
+        PRIMITIVES.put(short.class, Arrays.asList(Byte.class, Short.class));
+        PRIMITIVES.put(char.class, Arrays.asList(Character.class));
+        PRIMITIVES.put(int.class, Arrays.asList(Byte.class, Short.class, Character.class, Integer.class));
+        PRIMITIVES.put(long.class, Arrays.asList(Byte.class, Short.class, Character.class, Integer.class, Long.class));
+        PRIMITIVES.put(float.class,
+                Arrays.asList(Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class));
+        PRIMITIVES.put(double.class, Arrays.asList(Byte.class, Short.class, Character.class, Integer.class, Long.class,
+                Float.class, Double.class));
+    }
+
+    private final ClassValue<Map<String, List<Member>>> members = new ClassValue<Map<String, List<Member>>>() {
+        @Override
+        protected Map<String, List<Member>> computeValue(Class<?> type) {
+            return findMembers(type);
+        }
+    };
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public boolean appliesTo(EvalContext context) {
+        Object base = context.getBase();
+        return base != null && !(base instanceof Result) && members.get(base.getClass()).containsKey(context.getName());
+    }
+
+    @Override
+    public Object resolveSync(EvalContext context) {
+        Object base = context.getBase();
+        int paramsCount = context.getParams().size();
+        Object[] args = null;
+        for (Member member : members.get(base.getClass()).getOrDefault(context.getName(), Collections.emptyList())) {
+            if (member.paramsCount != paramsCount) {
+                continue;
+            }
+            if (member.async) {
+                return Result.ASYNC;
+            }
+            if (paramsCount == 0) {
+                return member.access(base);
+            }
+            if (args == null) {
+                // Use the param values only if already evaluated
+                args = new Object[paramsCount + 1];
+                args[0] = base;
+                for (int i = 0; i < paramsCount; i++) {
+                    CompletableFuture<Object> param = context.evaluate(context.getParams().get(i)).toCompletableFuture();
+                    if (!param.isDone() || param.isCompletedExceptionally()) {
+                        return Result.ASYNC;
+                    }
+                    args[i + 1] = param.getNow(null);
+                }
+            }
+            if (member.accepts(args)) {
+                return member.invoke(args);
+            }
+            // Try the next overloaded method
+        }
+        return Result.NOT_FOUND;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public CompletionStage<Object> resolve(EvalContext context) {
+        Object base = context.getBase();
+        int paramsCount = context.getParams().size();
+        List<Member> candidates = members.get(base.getClass()).getOrDefault(context.getName(), Collections.emptyList());
+        if (paramsCount == 0) {
+            for (Member member : candidates) {
+                if (member.paramsCount == 0) {
+                    Object value = member.access(base);
+                    return member.async ? (CompletionStage<Object>) value : CompletableFuture.completedFuture(value);
+                }
+            }
+            return Results.NOT_FOUND;
+        }
+        // Evaluate the params first
+        List<CompletableFuture<Object>> params = new ArrayList<>(paramsCount);
+        for (int i = 0; i < paramsCount; i++) {
+            params.add(context.evaluate(context.getParams().get(i)).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(params.toArray(new CompletableFuture<?>[0])).thenCompose(v -> {
+            Object[] args = new Object[paramsCount + 1];
+            args[0] = base;
+            for (int i = 0; i < paramsCount; i++) {
+                args[i + 1] = params.get(i).join();
+            }
+            for (Member member : candidates) {
+                if (member.paramsCount == paramsCount && member.accepts(args)) {
+                    Object value = member.invoke(args);
+                    return member.async ? (CompletionStage<Object>) value : CompletableFuture.completedFuture(value);
+                }
+            }
+            return Results.NOT_FOUND;
+        });
+    }
+
+    private static Map<String, List<Member>> findMembers(Class<?> clazz) {
+        LOGGER.debug("Analyzing {}", clazz);
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Map<String, List<Member>> members = new HashMap<>();
+        // Fields first
+        for (Field field : clazz.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || !Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                continue;
+            }
+            try {
+                members.computeIfAbsent(field.getName(), n -> new ArrayList<>())
+                        .add(new Member(lookup.unreflectGetter(field).asType(ACCESSOR_TYPE), NO_PARAMS, false));
+            } catch (IllegalAccessException e) {
+                LOGGER.debug("Field {} not accessible", field);
+            }
+        }
+        for (Method method : clazz.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic() || method.isBridge()
+                    || method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            Method accessible = findAccessibleMethod(method);
+            if (accessible == null) {
+                LOGGER.debug("Method {} not accessible", method);
+                continue;
+            }
+            MethodHandle handle;
+            try {
+                handle = lookup.unreflect(accessible);
+            } catch (IllegalAccessException e) {
+                LOGGER.debug("Method {} not accessible", method);
+                continue;
+            }
+            int paramsCount = method.getParameterCount();
+            boolean async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+            Member member = paramsCount == 0 ? new Member(handle.asType(ACCESSOR_TYPE), NO_PARAMS, async)
+                    : new Member(handle, method.getParameterTypes(), async);
+            members.computeIfAbsent(method.getName(), n -> new ArrayList<>()).add(member);
+            if (paramsCount == 0) {
+                String propertyName = getPropertyName(method.getName());
+                if (propertyName != null) {
+                    members.computeIfAbsent(propertyName, n -> new ArrayList<>()).add(member);
+                }
+            }
+        }
+        return members;
+    }
+
+    /**
+     * A public method declared on a non-public class may be only invoked through a public superclass or interface.
+     */
+    private static Method findAccessibleMethod(Method method) {
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        for (Class<?> interfaceClass : method.getDeclaringClass().getInterfaces()) {
+            Method found = findAccessibleMethod(interfaceClass, method);
+            if (found != null) {
+                return found;
+            }
+        }
+        Class<?> superClass = method.getDeclaringClass().getSuperclass();
+        return superClass != null ? findAccessibleMethod(superClass, method) : null;
+    }
+
+    private static Method findAccessibleMethod(Class<?> clazz, Method method) {
+        try {
+            return findAccessibleMethod(clazz.getMethod(method.getName(), method.getParameterTypes()));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String getPropertyName(String methodName) {
+        String name;
+        if (methodName.startsWith(GET_PREFIX) && methodName.length() > GET_PREFIX.length()) {
+            name = methodName.substring(GET_PREFIX.length());
+        } else if (methodName.startsWith(IS_PREFIX) && methodName.length() > IS_PREFIX.length()) {
+            name = methodName.substring(IS_PREFIX.length());
+        } else {
+            return null;
+        }
+        if (!Character.isUpperCase(name.charAt(0))) {
+            // E.g. getaway()
+            return null;
+        }
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static final class Member {
+
+        private final MethodHandle handle;
+        private final Class<?>[] paramTypes;
+        private final int paramsCount;
+        private final boolean async;
+
+        Member(MethodHandle handle, Class<?>[] paramTypes, boolean async) {
+            this.handle = handle;
+            this.paramTypes = paramTypes;
+            this.paramsCount = paramTypes.length;
+            this.async = async;
+        }
+
+        /**
+         * 
+         * @param args the base object followed by the param values
+         * @return {@code true} if the param values can be passed to the method
+         */
+        boolean accepts(Object[] args) {
+            for (int i = 0; i < paramsCount; i++) {
+                Object arg = args[i + 1];
+                Class<?> paramType = paramTypes[i];
+                if (paramType.isPrimitive()) {
+                    if (arg == null || !PRIMITIVES.get(paramType).contains(arg.getClass())) {
+                        return false;
+                    }
+                } else if (arg != null && !paramType.isInstance(arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Object access(Object base) {
+            try {
+                return handle.invokeExact(base);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Object invoke(Object[] args) {
+            try {
+                return handle.invokeWithArguments(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.github.mkouba.qute;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * The state of a single rendering shared by all resolution contexts. If the rendering is cancelled, e.g. the deadline
+ * expires or the result is cancelled by the client, all outstanding resolver stages are cancelled and no new expressions
+ * are evaluated.
+ */
+final class Rendering {
+
+    final Deadline deadline;
+    private final Set<CompletableFuture<?>> pending;
+    private volatile Throwable failure;
+    // Lazily initialized
+    private volatile Map<InvocationKey, CompletableFuture<Object>> inFlight;
+
+    Rendering(Deadline deadline) {
+        this.deadline = deadline;
+        this.pending = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * 
+     * @return {@code true} if the rendering was cancelled or the deadline expired
+     */
+    boolean isCancelled() {
+        if (failure != null) {
+            return true;
+        }
+        if (deadline.isExpired()) {
+            cancel(timeout());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 
+     * @return the cause of the cancellation or {@code null}
+     */
+    Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * 
+     * @param stage the result of a resolver
+     * @return the tracked stage
+     */
+    <T> CompletionStage<T> track(CompletionStage<T> stage) {
+        CompletableFuture<T> future = stage.toCompletableFuture();
+        if (future.isDone()) {
+            return future;
+        }
+        pending.add(future);
+        if (failure != null) {
+            // Cancelled concurrently
+            future.cancel(false);
+        }
+        future.whenComplete((r, t) -> pending.remove(future));
+        return future;
+    }
+
+    /**
+     * Concurrent identical invocations share a single stage. The invocation is removed when the stage completes, i.e. a
+     * subsequent identical invocation is not deduplicated.
+     * 
+     * @param resolver
+     * @param base
+     * @param name
+     * @param params
+     * @param invocation
+     * @return the stage of the identical invocation in flight or the stage of the new invocation
+     */
+    CompletionStage<Object> singleFlight(Resolver resolver, Object base, String name, List<String> params,
+            Supplier<CompletionStage<Object>> invocation) {
+        Map<InvocationKey, CompletableFuture<Object>> inFlight = inFlight();
+        InvocationKey key = new InvocationKey(resolver, base, name, params);
+        CompletableFuture<Object> shared = inFlight.get(key);
+        if (shared != null) {
+            return shared;
+        }
+        shared = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing;
+        }
+        CompletionStage<Object> stage;
+        try {
+            stage = invocation.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+            return shared;
+        }
+        CompletableFuture<Object> result = shared;
+        stage.whenComplete((r, t) -> {
+            inFlight.remove(key, result);
+            if (t != null) {
+                result.completeExceptionally(t);
+            } else {
+                result.complete(r);
+            }
+        });
+        if (stage instanceof CompletableFuture) {
+            // Propagate the cancellation of the shared stage to the invocation
+            CompletableFuture<Object> future = (CompletableFuture<Object>) stage;
+            result.whenComplete((r, t) -> {
+                if (t != null) {
+                    future.completeExceptionally(t);
+                }
+            });
+        }
+        return result;
+    }
+
+    private Map<InvocationKey, CompletableFuture<Object>> inFlight() {
+        Map<InvocationKey, CompletableFuture<Object>> map = inFlight;
+        if (map == null) {
+            synchronized (this) {
+                map = inFlight;
+                if (map == null) {
+                    map = new ConcurrentHashMap<>();
+                    inFlight = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    void cancel(Throwable cause) {
+        if (failure != null) {
+            return;
+        }
+        failure = cause;
+        for (CompletableFuture<?> future : pending) {
+            if (!future.completeExceptionally(cause)) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    static TimeoutException timeout() {
+        return new TimeoutException("Deadline expired");
+    }
+
+    static CancellationException cancelled() {
+        return new CancellationException("Rendering cancelled");
+    }
+
+    /**
+     * The resolver and the base object are compared by identity.
+     */
+    static final class InvocationKey {
+
+        private final Resolver resolver;
+        private final Object base;
+        private final String name;
+        private final List<String> params;
+        private final int hashCode;
+
+        InvocationKey(Resolver resolver, Object base, String name, List<String> params) {
+            this.resolver = resolver;
+            this.base = base;
+            this.name = name;
+            this.params = params;
+            this.hashCode = Objects.hash(System.identityHashCode(resolver), System.identityHashCode(base), name, params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof InvocationKey)) {
+                return false;
+            }
+            InvocationKey other = (InvocationKey) obj;
+            return resolver == other.resolver && base == other.base && name.equals(other.name)
+                    && params.equals(other.params);
+        }
+
+    }
+
+}
@@ -65,4 +65,20 @@ public interface ResolutionContext {
      */
     SectionBlock getExtendingBlock(String name);
 
+    /**
+     * 
+     * @return the deadline of the current rendering
+     */
+    default Deadline getDeadline() {
+        return Deadline.NONE;
+    }
+
+    /**
+     * 
+     * @return {@code true} if the current rendering was cancelled or its deadline expired
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
 }
@@ -1,36 +1,194 @@
 package com.github.mkouba.qute;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.mkouba.qute.Results.Result;
 
 class ResolutionContextImpl implements ResolutionContext {
 
+    private static final Object NULL = new Object();
+
     private final ResolutionContextImpl parent;
+    private final ResolutionContextImpl root;
     private final Object data;
     private final List<NamespaceResolver> namespaceResolvers;
     private final Evaluator evaluator;
     private final Map<String, SectionBlock> extendingBlocks;
+    private final Map<String, List<Object>> prefetched;
+    private final int prefetchedIndex;
+    // Only used by the root context
+    private volatile Map<MemoKey, Object> memo;
+    private final Rendering rendering;
+
+    /**
+     * 
+     * @param data
+     * @param namespaceResolvers
+     * @param evaluator
+     * @param rendering
+     * @return a new root context
+     */
+    ResolutionContextImpl(Object data, List<NamespaceResolver> namespaceResolvers, Evaluator evaluator,
+            Rendering rendering) {
+        this(null, data, namespaceResolvers, evaluator, null, null, -1, rendering);
+    }
 
     ResolutionContextImpl(ResolutionContextImpl parent, Object data, List<NamespaceResolver> namespaceResolvers,
             Evaluator evaluator, Map<String, SectionBlock> extendingBlocks) {
+        this(parent, data, namespaceResolvers, evaluator, extendingBlocks, null, -1, null);
+    }
+
+    private ResolutionContextImpl(ResolutionContextImpl parent, Object data, List<NamespaceResolver> namespaceResolvers,
+            Evaluator evaluator, Map<String, SectionBlock> extendingBlocks, Map<String, List<Object>> prefetched,
+            int prefetchedIndex, Rendering rendering) {
         this.parent = parent;
+        this.rendering = parent != null ? parent.rendering : rendering;
+        this.root = parent != null ? parent.root : this;
         this.data = data;
         this.namespaceResolvers = namespaceResolvers;
         this.evaluator = evaluator;
         this.extendingBlocks = extendingBlocks;
+        this.prefetched = prefetched;
+        this.prefetchedIndex = prefetchedIndex;
     }
 
     @Override
     public CompletionStage<Object> evaluate(Expression expression) {
+        if (rendering != null && rendering.getFailure() != null) {
+            // Do not start any new work - the expiration of the deadline is detected by the timer
+            return Futures.failure(rendering.getFailure());
+        }
         return evaluator.evaluate(expression, this);
     }
 
+    @Override
+    public Deadline getDeadline() {
+        return rendering != null ? rendering.deadline : Deadline.NONE;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return rendering != null && rendering.isCancelled();
+    }
+
+    /**
+     * 
+     * @param stage the result of a resolver
+     * @return the stage that is cancelled if the rendering is cancelled
+     */
+    <T> CompletionStage<T> track(CompletionStage<T> stage) {
+        return rendering != null ? rendering.track(stage) : stage;
+    }
+
+    /**
+     * 
+     * @param resolver
+     * @param context
+     * @param invocation
+     * @return the stage shared by all identical invocations in flight during the current rendering
+     */
+    CompletionStage<Object> singleFlight(Resolver resolver, EvalContext context,
+            Supplier<CompletionStage<Object>> invocation) {
+        if (rendering == null) {
+            return invocation.get();
+        }
+        return rendering.singleFlight(resolver, context.getBase(), context.getName(), context.getParams(), invocation);
+    }
+
     @Override
     public ResolutionContext createChild(Object data, List<NamespaceResolver> namespaceResolvers) {
         return new ResolutionContextImpl(this, data, namespaceResolvers, evaluator, null);
     }
 
+    /**
+     * 
+     * @param data
+     * @param namespaceResolvers
+     * @param prefetched the values resolved in bulk, see {@link #evaluateAll(List, Collection)}
+     * @param prefetchedIndex the index of the data in the prefetched values
+     * @return a new child resolution context
+     */
+    ResolutionContext createChild(Object data, List<NamespaceResolver> namespaceResolvers,
+            Map<String, List<Object>> prefetched, int prefetchedIndex) {
+        return new ResolutionContextImpl(this, data, namespaceResolvers, evaluator, null,
+                prefetched.isEmpty() ? null : prefetched, prefetchedIndex, null);
+    }
+
+    /**
+     * 
+     * @param bases
+     * @param names
+     * @return the values resolved in bulk
+     * @see BulkValueResolver
+     */
+    CompletionStage<Map<String, List<Object>>> evaluateAll(List<Object> bases, Collection<String> names) {
+        if (evaluator instanceof EvaluatorImpl) {
+            return ((EvaluatorImpl) evaluator).evaluateAll(bases, names, this);
+        }
+        return CompletableFuture.completedFuture(Collections.emptyMap());
+    }
+
+    /**
+     * 
+     * @param name
+     * @return the value of a property of the data resolved in bulk or {@link Result#NOT_FOUND}
+     */
+    Object getPrefetched(String name) {
+        if (prefetched != null) {
+            List<Object> values = prefetched.get(name);
+            if (values != null) {
+                return values.get(prefetchedIndex);
+            }
+        }
+        return Result.NOT_FOUND;
+    }
+
+    /**
+     * 
+     * @param scope
+     * @param key
+     * @return the value memoized during the current rendering or {@link Result#NOT_FOUND}
+     * @see Resolver#isPure()
+     */
+    Object getMemoized(Object scope, Object key) {
+        Map<MemoKey, Object> memo = root.memo;
+        if (memo == null) {
+            return Result.NOT_FOUND;
+        }
+        Object value = memo.get(new MemoKey(scope, key));
+        if (value == null) {
+            return Result.NOT_FOUND;
+        }
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * 
+     * @param scope the identity of the scope, e.g. the resolution context
+     * @param key
+     * @param value
+     */
+    void memoize(Object scope, Object key, Object value) {
+        Map<MemoKey, Object> memo = root.memo;
+        if (memo == null) {
+            synchronized (root) {
+                memo = root.memo;
+                if (memo == null) {
+                    memo = new ConcurrentHashMap<>();
+                    root.memo = memo;
+                }
+            }
+        }
+        memo.put(new MemoKey(scope, key), value == null ? NULL : value);
+    }
+
     @Override
     public ResolutionContext createChild(Map<String, SectionBlock> extendingBlocks) {
         return new ResolutionContextImpl(this, data, namespaceResolvers, evaluator, extendingBlocks);
@@ -51,6 +209,14 @@ class ResolutionContextImpl implements ResolutionContext {
         return parent;
     }
 
+    /**
+     * 
+     * @return {@code true} if {@link #getExtendingBlock(String)} may find a block in this context or its parents
+     */
+    boolean hasExtendingBlocks() {
+        return extendingBlocks != null;
+    }
+
     @Override
     public SectionBlock getExtendingBlock(String name) {
         if (extendingBlocks != null) {
@@ -65,4 +231,33 @@ class ResolutionContextImpl implements ResolutionContext {
         return null;
     }
 
+    static final class MemoKey {
+
+        private final Object scope;
+        private final Object key;
+
+        MemoKey(Object scope, Object key) {
+            this.scope = scope;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(scope) + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MemoKey)) {
+                return false;
+            }
+            MemoKey other = (MemoKey) obj;
+            return scope == other.scope && key.equals(other.key);
+        }
+
+    }
+
 }
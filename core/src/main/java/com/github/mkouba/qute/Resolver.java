@@ -2,6 +2,7 @@ package com.github.mkouba.qute;
 
 import java.util.concurrent.CompletionStage;
 
+import com.github.mkouba.qute.Results.Result;
 
 public interface Resolver {
     
@@ -13,4 +14,26 @@ public interface Resolver {
      */
     CompletionStage<Object> resolve(EvalContext context);
 
+    /**
+     * The evaluator attempts to resolve the value synchronously first so that no {@link CompletionStage} needs to be
+     * allocated on the common path. The default implementation always returns {@link Result#ASYNC}.
+     * 
+     * @param context
+     * @return the result, {@link Result#NOT_FOUND} or {@link Result#ASYNC} if {@link #resolve(EvalContext)} must be used
+     *         instead
+     */
+    default Object resolveSync(EvalContext context) {
+        return Result.ASYNC;
+    }
+
+    /**
+     * A pure resolver always returns the same result for the same input during a single rendering of a template. The
+     * result of an expression is memoized per rendering if all the resolvers used to evaluate the expression are pure.
+     * 
+     * @return {@code true} if the result can be memoized
+     */
+    default boolean isPure() {
+        return false;
+    }
+
 }
@@ -8,8 +8,14 @@ public class Results {
     public static final CompletionStage<Object> NOT_FOUND = CompletableFuture.completedFuture(Result.NOT_FOUND);
     
     public enum Result {
-        
+
         NOT_FOUND,
+
+        /**
+         * Returned from {@link Resolver#resolveSync(EvalContext)} if the value can only be resolved asynchronously. It is
+         * never the result of an evaluation.
+         */
+        ASYNC,
     }
 
 }
@@ -78,7 +78,7 @@ public class SectionBlock {
         }
 
         SectionBlock build() {
-            return new SectionBlock(id, label, parameters, nodes);
+            return new SectionBlock(id, label, parameters, Optimizer.optimize(nodes));
         }
     }
 
@@ -28,6 +28,15 @@ public interface SectionHelperFactory<T extends SectionHelper> {
         return ParametersInfo.EMPTY;
     }
 
+    /**
+     * 
+     * @return {@code true} if the content of the section may be resolved against a different context, e.g. the elements
+     *         of a loop
+     */
+    default boolean changesResolutionContext() {
+        return true;
+    }
+
     /**
      * 
      * @param context
@@ -1,6 +1,7 @@
 package com.github.mkouba.qute;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -16,32 +17,75 @@ class SectionNode implements TemplateNode {
         return new Builder();
     }
 
+    /**
+     * The name used in the section start tag or null for the root section.
+     */
+    final String name;
+
     final List<SectionBlock> blocks;
 
-    private final SectionHelper helper;
+    final SectionHelper helper;
+
+    private final Origin origin;
+
+    private final Profiler profiler;
 
-    public SectionNode(List<SectionBlock> blocks, SectionHelper helper) {
+    public SectionNode(String name, List<SectionBlock> blocks, SectionHelper helper, Origin origin, Profiler profiler) {
+        this.name = name;
         this.blocks = ImmutableList.copyOf(blocks);
         this.helper = helper;
+        this.origin = origin;
+        this.profiler = profiler;
     }
 
     @Override
     public CompletionStage<ResultNode> resolve(ResolutionContext context) {
+        if (profiler != null) {
+            return profiler.profile(this, System.nanoTime(), helper.resolve(new SectionResolutionContextImpl(context)));
+        }
         return helper.resolve(new SectionResolutionContextImpl(context));
     }
 
+    /**
+     * 
+     * @return the nodes that should replace this section, or {@code null} if the section cannot be folded
+     * @see Optimizer
+     */
+    List<TemplateNode> fold() {
+        if (profiler != null) {
+            return null;
+        }
+        if ((helper instanceof IfSectionHelper || helper instanceof LoopSectionHelper
+                || helper instanceof WithSectionHelper) && blocks.stream().allMatch(b -> b.nodes.isEmpty())) {
+            // Nothing to render
+            return Collections.emptyList();
+        }
+        if (helper instanceof IfSectionHelper) {
+            return ((IfSectionHelper) helper).fold();
+        }
+        return null;
+    }
+
+    @Override
+    public Origin getOrigin() {
+        return origin;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        builder.append("SectionNode [helper=").append(helper.getClass().getSimpleName()).append("]");
+        builder.append("SectionNode [name=").append(name).append(", helper=").append(helper.getClass().getSimpleName())
+                .append(", origin=").append(origin).append("]");
         return builder.toString();
     }
 
     static class Builder {
 
         private final List<SectionBlock> blocks;
+        private String name;
         private SectionHelperFactory<?> factory;
         private EngineImpl engine;
+        private Origin origin;
 
         public Builder() {
             this.blocks = new ArrayList<>();
@@ -57,13 +101,28 @@ class SectionNode implements TemplateNode {
             return this;
         }
 
+        SectionHelperFactory<?> getHelperFactory() {
+            return factory;
+        }
+
         Builder setEngine(EngineImpl engine) {
             this.engine = engine;
             return this;
         }
 
+        Builder setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        Builder setOrigin(Origin origin) {
+            this.origin = origin;
+            return this;
+        }
+
         SectionNode build() {
-            return new SectionNode(blocks, factory.initialize(new SectionInitContextImpl(engine, blocks)));
+            return new SectionNode(name, blocks, factory.initialize(new SectionInitContextImpl(engine, blocks)), origin,
+                    engine.getProfiler());
         }
 
     }
@@ -82,7 +141,9 @@ class SectionNode implements TemplateNode {
                 // Use the main block
                 block = blocks.get(0);
             }
-            if (block.nodes.size() == 1) {
+            if (block.nodes.isEmpty()) {
+                return CompletableFuture.completedFuture(ResultNode.NOOP);
+            } else if (block.nodes.size() == 1) {
                 return block.nodes.get(0).resolve(context);
             }
             CompletableFuture<ResultNode> result = new CompletableFuture<ResultNode>();
@@ -8,14 +8,33 @@ import java.util.function.Consumer;
 public class SingleResultNode implements ResultNode {
 
     private final Object value;
+    private final Escaper escaper;
 
     public SingleResultNode(Object value) {
+        this(value, null);
+    }
+
+    /**
+     * 
+     * @param value
+     * @param escaper may be {@code null}; {@link RawString} values are never escaped
+     */
+    public SingleResultNode(Object value, Escaper escaper) {
         this.value = value;
+        this.escaper = escaper;
     }
 
     @Override
     public void process(Consumer<String> consumer) {
-        consumer.accept(value.toString());
+        if (value == null) {
+            // Null values are not rendered
+            return;
+        }
+        if (escaper == null || value instanceof RawString) {
+            consumer.accept(value.toString());
+        } else {
+            consumer.accept(escaper.escape(value.toString()));
+        }
     }
 
 }
@@ -1,5 +1,7 @@
 package com.github.mkouba.qute;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 
@@ -8,10 +10,17 @@ import java.util.function.Consumer;
  */
 public interface Template {
 
+    /**
+     * 
+     * @return a new instance that can be used to configure a single rendering
+     */
+    TemplateInstance instance();
+
     /**
      * 
      * @param data
      * @return the rendered template
+     * @see #instance()
      */
     String render(Object data);
 
@@ -20,7 +29,30 @@ public interface Template {
      * @param data
      * @param resultConsumer
      * @return the new CompletionStage
+     * @see #instance()
      */
     CompletionStage<Void> render(Object data, Consumer<String> resultConsumer);
 
+    /**
+     * The hint is derived from the length of the static text of the template and the length of the previous
+     * renderings. It can be used to presize an output buffer.
+     * 
+     * @return the estimated length of the rendered template
+     */
+    int getOutputSizeHint();
+
+    /**
+     * A parameter declaration tag, e.g. <code>{@org.acme.Item item}</code>, binds a parameter name to a fully qualified
+     * type name. It does not affect the rendering but makes it possible to validate the expressions at build time.
+     * 
+     * @return an immutable map of parameter names to type names, in the order of declaration
+     */
+    Map<String, String> getParameterDeclarations();
+
+    /**
+     * 
+     * @return an immutable list of expressions of all expression tags
+     */
+    List<Expression> getExpressions();
+
 }
@@ -1,61 +1,454 @@
 package com.github.mkouba.qute;
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 
  */
 class TemplateImpl implements Template {
 
+    private static final int MIN_SIZE_HINT = 16;
+    private static final int DYNAMIC_LENGTH_PER_EXPRESSION = 16;
+    // The weight of a new sample is 1/4
+    private static final int EWMA_WEIGHT = 4;
+
     private final EngineImpl engine;
     final SectionNode root;
+    private final Map<String, String> parameterDeclarations;
+    private final List<Expression> expressions;
+    // The ids of the included templates
+    private final Set<String> dependencies;
+    // The length of all static text, i.e. including the content of all sections
+    private final int staticLength;
+    // An exponentially-weighted moving average of the difference between the rendered length and the static length
+    private volatile int dynamicLength;
 
-    public TemplateImpl(EngineImpl engine, SectionNode root) {
+    public TemplateImpl(EngineImpl engine, SectionNode root, Map<String, String> parameterDeclarations,
+            List<Expression> expressions) {
         this.engine = engine;
         this.root = root;
+        this.parameterDeclarations = Collections.unmodifiableMap(new LinkedHashMap<>(parameterDeclarations));
+        this.expressions = ImmutableList.copyOf(expressions);
+        this.staticLength = staticLength(root);
+        Set<String> dependencies = new LinkedHashSet<>();
+        collectDependencies(root, dependencies);
+        this.dependencies = Collections.unmodifiableSet(dependencies);
+        this.dynamicLength = DYNAMIC_LENGTH_PER_EXPRESSION * expressions.size();
+    }
+
+    @Override
+    public Map<String, String> getParameterDeclarations() {
+        return parameterDeclarations;
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return expressions;
+    }
+
+    @Override
+    public TemplateInstance instance() {
+        return new TemplateInstanceImpl();
     }
 
     @Override
     public String render(Object data) {
-        StringBuilder builder = new StringBuilder();
-        try {
-            renderData(data, builder::append).toCompletableFuture().get(10, TimeUnit.SECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            throw new IllegalStateException(e);
-        }
-        return builder.toString();
+        return instance().data(data).render();
     }
 
     @Override
     public CompletionStage<Void> render(Object data, Consumer<String> resultConsumer) {
-        return renderData(data, resultConsumer);
+        return instance().data(data).render(resultConsumer);
+    }
+
+    @Override
+    public int getOutputSizeHint() {
+        return Math.max(MIN_SIZE_HINT, staticLength + dynamicLength);
+    }
+
+    void updateOutputSizeHint(int length) {
+        // Concurrent updates may be lost but the value is only a hint
+        int dynamic = dynamicLength;
+        dynamicLength = dynamic + (length - staticLength - dynamic) / EWMA_WEIGHT;
+    }
+
+    /**
+     * 
+     * @return the ids of the templates included directly by this template
+     */
+    Set<String> getDependencies() {
+        return dependencies;
     }
 
-    private CompletionStage<Void> renderData(Object data, Consumer<String> resultConsumer) {
+    private static void collectDependencies(SectionNode section, Set<String> dependencies) {
+        if (section.helper instanceof IncludeSectionHelper) {
+            String templateId = ((IncludeSectionHelper) section.helper).templateId;
+            if (templateId != null) {
+                dependencies.add(templateId);
+            }
+        }
+        for (SectionBlock block : section.blocks) {
+            for (TemplateNode node : block.nodes) {
+                if (node instanceof SectionNode) {
+                    collectDependencies((SectionNode) node, dependencies);
+                }
+            }
+        }
+    }
+
+    private static int staticLength(SectionNode section) {
+        int length = 0;
+        for (SectionBlock block : section.blocks) {
+            for (TemplateNode node : block.nodes) {
+                if (node instanceof TextNode) {
+                    length += ((TextNode) node).value.length();
+                } else if (node instanceof SectionNode) {
+                    length += staticLength((SectionNode) node);
+                }
+            }
+        }
+        return length;
+    }
+
+    private CompletableFuture<Void> renderData(Object data, Consumer<String> resultConsumer, Deadline deadline) {
         CompletableFuture<Void> result = new CompletableFuture<>();
+        Rendering rendering = new Rendering(deadline);
+        // Cancel the outstanding work if the rendering fails, times out or is cancelled by the client
+        // The returned stage completes after the outstanding work is cancelled
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        result.whenComplete((r, t) -> {
+            if (t != null) {
+                rendering.cancel(t);
+                completed.completeExceptionally(t);
+            } else {
+                completed.complete(r);
+            }
+        });
+        completed.whenComplete((r, t) -> {
+            if (t != null) {
+                result.completeExceptionally(t);
+            }
+        });
         DataNamespaceResolver dataResolver = new DataNamespaceResolver();
         List<NamespaceResolver> namespaceResolvers = ImmutableList.<NamespaceResolver> builder()
                 .addAll(engine.getNamespaceResolvers()).add(dataResolver).build();
-        ResolutionContext rootContext = new ResolutionContextImpl(null, data, namespaceResolvers,
-                engine.getEvaluator(), null);
+        ResolutionContext rootContext = new ResolutionContextImpl(data, namespaceResolvers, engine.getEvaluator(),
+                rendering);
         dataResolver.rootContext = rootContext;
+        Executor executor = engine.getRenderExecutor();
+        if (executor != null) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        resolveRoot(rootContext, resultConsumer, result);
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        } else {
+            resolveRoot(rootContext, resultConsumer, result);
+        }
+        if (!result.isDone()) {
+            engine.scheduleTimeout(result, deadline);
+        }
+        return completed;
+    }
+
+    private void resolveRoot(ResolutionContext rootContext, Consumer<String> resultConsumer,
+            CompletableFuture<Void> result) {
         // Async resolution
         root.resolve(rootContext).whenComplete((r, t) -> {
             if (t != null) {
                 result.completeExceptionally(t);
-            } else {
+            } else if (!result.isDone()) {
                 // Sync processing of the result tree - build the output
-                r.process(resultConsumer);
-                result.complete(null);
+                try {
+                    r.process(resultConsumer);
+                    result.complete(null);
+                } catch (RuntimeException e) {
+                    // E.g. the consumer failed to write a chunk
+                    result.completeExceptionally(e);
+                }
             }
         });
-        return result;
+    }
+
+    class TemplateInstanceImpl implements TemplateInstance {
+
+        private Object data;
+        // Only used if data entries are set
+        private Map<String, Object> entries;
+        private long timeout = engine.getTimeout();
+
+        @Override
+        public TemplateInstance data(Object data) {
+            if (entries != null) {
+                throw new IllegalStateException("Data entries already set");
+            }
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public TemplateInstance data(String key, Object value) {
+            return entry(key, value);
+        }
+
+        @Override
+        public TemplateInstance computedData(String key, Supplier<?> supplier) {
+            return entry(key, new LazyData.Computed(Objects.requireNonNull(supplier)));
+        }
+
+        @Override
+        public TemplateInstance asyncData(String key, Supplier<? extends CompletionStage<?>> supplier) {
+            return entry(key, new LazyData.Async(Objects.requireNonNull(supplier)));
+        }
+
+        private TemplateInstance entry(String key, Object value) {
+            if (data != null) {
+                throw new IllegalStateException("Data object already set");
+            }
+            if (entries == null) {
+                entries = new HashMap<>();
+            }
+            entries.put(key, value);
+            return this;
+        }
+
+        private Object data() {
+            // Computed values are memoized per rendering
+            return entries != null ? new LazyData(entries) : data;
+        }
+
+        @Override
+        public TemplateInstance timeout(long timeout, TimeUnit unit) {
+            this.timeout = Deadline.toMillis(timeout, unit);
+            return this;
+        }
+
+        @Override
+        public String render() {
+            StringBuilder builder = new StringBuilder(getOutputSizeHint());
+            CompletableFuture<Void> result = renderData(data(), builder::append,
+                    Deadline.after(timeout, TimeUnit.MILLISECONDS));
+            if (!result.isDone() && !engine.isBlockingAllowed()) {
+                result.cancel(false);
+                throw new IllegalStateException(
+                        "Rendering cannot be finished without blocking the current thread - use renderAsync() instead: "
+                                + Thread.currentThread().getName());
+            }
+            try {
+                result.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                result.completeExceptionally(e);
+                throw timeoutFailure(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    throw timeoutFailure(e.getCause());
+                }
+                throw new IllegalStateException(e);
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            updateOutputSizeHint(builder.length());
+            return builder.toString();
+        }
+
+        @Override
+        public CompletionStage<String> renderAsync() {
+            StringBuilder builder = new StringBuilder(getOutputSizeHint());
+            return render(builder::append, () -> {
+                updateOutputSizeHint(builder.length());
+                return builder.toString();
+            });
+        }
+
+        @Override
+        public CompletionStage<Void> render(Consumer<String> resultConsumer) {
+            CoalescingConsumer consumer = new CoalescingConsumer(resultConsumer, engine.getOutputChunkSize(),
+                    getOutputSizeHint());
+            return render(consumer, () -> {
+                consumer.flush();
+                updateOutputSizeHint(consumer.length);
+                return null;
+            });
+        }
+
+        @Override
+        public CompletionStage<Void> renderBytes(Consumer<ByteBuffer> chunkConsumer) {
+            Utf8ChunkConsumer consumer = new Utf8ChunkConsumer(chunkConsumer, engine.getOutputChunkSize());
+            return render(consumer, () -> {
+                consumer.flush();
+                updateOutputSizeHint(consumer.length);
+                return null;
+            });
+        }
+
+        private <T> CompletionStage<T> render(Consumer<String> consumer, Supplier<T> finisher) {
+            CompletableFuture<Void> result = renderData(data(), consumer, Deadline.after(timeout, TimeUnit.MILLISECONDS));
+            CompletableFuture<T> flushed = result.thenApply(v -> finisher.get());
+            // Propagate the cancellation requested by the client
+            flushed.whenComplete((r, t) -> {
+                if (t != null && !result.isDone()) {
+                    result.completeExceptionally(t);
+                }
+            });
+            return flushed;
+        }
+
+        private IllegalStateException timeoutFailure(Throwable cause) {
+            return new IllegalStateException("Rendering not finished in " + timeout + " ms", cause);
+        }
+
+    }
+
+    /**
+     * Coalesces small strings into chunks of the given size.
+     */
+    static final class CoalescingConsumer implements Consumer<String> {
+
+        private final Consumer<String> delegate;
+        private final int chunkSize;
+        private final int initialCapacity;
+        private StringBuilder buffer;
+        // The total length of all strings accepted
+        int length;
+
+        CoalescingConsumer(Consumer<String> delegate, int chunkSize, int sizeHint) {
+            this.delegate = delegate;
+            this.chunkSize = chunkSize;
+            this.initialCapacity = Math.min(chunkSize, sizeHint);
+        }
+
+        @Override
+        public void accept(String value) {
+            length += value.length();
+            if (value.length() >= chunkSize) {
+                // Never copy a large string
+                flush();
+                delegate.accept(value);
+                return;
+            }
+            if (buffer == null) {
+                buffer = new StringBuilder(initialCapacity);
+            } else if (buffer.length() + value.length() > chunkSize) {
+                flush();
+            }
+            buffer.append(value);
+        }
+
+        void flush() {
+            if (buffer != null && buffer.length() > 0) {
+                delegate.accept(buffer.toString());
+                buffer.setLength(0);
+            }
+        }
+
+    }
+
+    /**
+     * Encodes the strings in UTF-8 into a reused buffer of the given size.
+     */
+    static final class Utf8ChunkConsumer implements Consumer<String> {
+
+        private final Consumer<ByteBuffer> delegate;
+        private final byte[] buffer;
+        private int position;
+        // A high surrogate at the end of the previous string
+        private char highSurrogate;
+        // The total length of all strings accepted
+        int length;
+
+        Utf8ChunkConsumer(Consumer<ByteBuffer> delegate, int chunkSize) {
+            this.delegate = delegate;
+            // A code point is encoded in 4 bytes at most
+            this.buffer = new byte[Math.max(chunkSize, 4)];
+        }
+
+        @Override
+        public void accept(String value) {
+            length += value.length();
+            for (int i = 0; i < value.length(); i++) {
+                if (buffer.length - position < 4) {
+                    emit();
+                }
+                char c = value.charAt(i);
+                if (highSurrogate != 0) {
+                    char high = highSurrogate;
+                    highSurrogate = 0;
+                    if (Character.isLowSurrogate(c)) {
+                        encode(Character.toCodePoint(high, c));
+                        continue;
+                    }
+                    // Malformed input
+                    buffer[position++] = '?';
+                }
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xc0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c)) {
+                    highSurrogate = c;
+                } else if (Character.isLowSurrogate(c)) {
+                    // Malformed input
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xe0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+
+        void flush() {
+            if (highSurrogate != 0) {
+                // Malformed input
+                highSurrogate = 0;
+                if (position == buffer.length) {
+                    emit();
+                }
+                buffer[position++] = '?';
+            }
+            emit();
+        }
+
+        private void emit() {
+            if (position > 0) {
+                delegate.accept(ByteBuffer.wrap(buffer, 0, position).asReadOnlyBuffer());
+                position = 0;
+            }
+        }
+
+        private void encode(int codePoint) {
+            buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+        }
+
     }
 
     static class DataNamespaceResolver implements NamespaceResolver {
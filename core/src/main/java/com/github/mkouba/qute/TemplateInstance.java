@@ -0,0 +1,107 @@
+package com.github.mkouba.qute;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Represents a single rendering of a template. An instance is not thread-safe and should not be reused.
+ * 
+ * @see Template#instance()
+ */
+public interface TemplateInstance {
+
+    /**
+     * 
+     * @param data
+     * @return self
+     */
+    TemplateInstance data(Object data);
+
+    /**
+     * Set a data entry. The entries are rendered as a map and cannot be combined with a data object set via
+     * {@link #data(Object)}.
+     * 
+     * @param key
+     * @param value
+     * @return self
+     * @throws IllegalStateException if a data object is already set
+     */
+    TemplateInstance data(String key, Object value);
+
+    /**
+     * The supplier is only called if an expression references the entry, and at most once per rendering.
+     * 
+     * @param key
+     * @param supplier
+     * @return self
+     * @throws IllegalStateException if a data object is already set
+     * @see #data(String, Object)
+     */
+    TemplateInstance computedData(String key, Supplier<?> supplier);
+
+    /**
+     * The supplier is only called if an expression references the entry, and at most once per rendering. The value of the
+     * entry is the result of the returned stage.
+     * 
+     * @param key
+     * @param supplier
+     * @return self
+     * @throws IllegalStateException if a data object is already set
+     * @see #data(String, Object)
+     */
+    TemplateInstance asyncData(String key, Supplier<? extends CompletionStage<?>> supplier);
+
+    /**
+     * The deadline is computed when the rendering starts. By default, the timeout configured via
+     * {@link EngineBuilder#timeout(long, TimeUnit)} is used.
+     * 
+     * @param timeout
+     * @param unit
+     * @return self
+     * @throws IllegalArgumentException if the timeout is less than one millisecond
+     * @see EvalContext#getDeadline()
+     */
+    TemplateInstance timeout(long timeout, TimeUnit unit);
+
+    /**
+     * 
+     * @return the rendered template
+     * @throws IllegalStateException if the rendering fails or the deadline expires, or if the rendering cannot be finished
+     *         without blocking a thread that must not be blocked
+     * @see EngineBuilder#nonBlockingThreadCheck(java.util.function.BooleanSupplier)
+     */
+    String render();
+
+    /**
+     * The current thread is never blocked.
+     * 
+     * @return the new CompletionStage completed with the rendered template
+     * @see #render(Consumer)
+     */
+    CompletionStage<String> renderAsync();
+
+    /**
+     * If the deadline expires the returned stage completes with a {@link java.util.concurrent.TimeoutException}. If the
+     * stage is cancelled, e.g. via {@code toCompletableFuture().cancel(false)} when a client disconnects, the rendering is
+     * cancelled as well. In both cases, all outstanding resolver stages are cancelled and no new expressions are evaluated.
+     * 
+     * @param resultConsumer
+     * @return the new CompletionStage
+     */
+    CompletionStage<Void> render(Consumer<String> resultConsumer);
+
+    /**
+     * The output is encoded in UTF-8 and passed to the consumer in chunks of the size configured via
+     * {@link EngineBuilder#outputChunkSize(int)}. The buffer is reused for the next chunk, i.e. the consumer must copy the
+     * bytes before it returns, e.g. into a pooled buffer of the network layer.
+     * 
+     * @param chunkConsumer
+     * @return the new CompletionStage
+     * @see #render(Consumer)
+     */
+    CompletionStage<Void> renderBytes(Consumer<ByteBuffer> chunkConsumer);
+
+}
@@ -14,4 +14,12 @@ public interface TemplateNode {
      */
     CompletionStage<ResultNode> resolve(ResolutionContext context);
 
+    /**
+     * 
+     * @return the origin of the node or null if not available
+     */
+    default Origin getOrigin() {
+        return null;
+    }
+
 }
@@ -11,7 +11,7 @@ public class TextNode implements TemplateNode, ResultNode {
 
     private final CompletableFuture<ResultNode> result;
 
-    private final String value;
+    final String value;
 
     public TextNode(String value) {
         this.result = CompletableFuture.completedFuture(this);
@@ -0,0 +1,115 @@
+package com.github.mkouba.qute;
+
+import java.util.function.Consumer;
+
+/**
+ * Result nodes specialized for the most common value types. The strings of small integers and booleans are never
+ * allocated during rendering.
+ */
+final class TypedResultNodes {
+
+    private TypedResultNodes() {
+    }
+
+    static final ResultNode TRUE = new TextResultNode("true");
+    static final ResultNode FALSE = new TextResultNode("false");
+
+    private static final int MIN_CACHED_INT = -128;
+    private static final int MAX_CACHED_INT = 1023;
+    private static final ResultNode[] INTS = new ResultNode[MAX_CACHED_INT - MIN_CACHED_INT + 1];
+
+    static {
+        for (int i = 0; i < INTS.length; i++) {
+            INTS[i] = new TextResultNode(Integer.toString(i + MIN_CACHED_INT));
+        }
+    }
+
+    enum Kind {
+
+        STRING,
+        INTEGER,
+        LONG,
+        BOOLEAN,
+        CHAR_SEQUENCE,
+        OTHER;
+
+        static Kind of(Class<?> type) {
+            if (type == String.class) {
+                return STRING;
+            } else if (type == Integer.class || type == Short.class || type == Byte.class) {
+                return INTEGER;
+            } else if (type == Long.class) {
+                return LONG;
+            } else if (type == Boolean.class) {
+                return BOOLEAN;
+            } else if (CharSequence.class.isAssignableFrom(type) && !RawString.class.equals(type)) {
+                return CHAR_SEQUENCE;
+            }
+            return OTHER;
+        }
+
+    }
+
+    /**
+     * 
+     * @param kind the kind of the value type
+     * @param value the non-null value
+     * @param escaper may be {@code null}
+     * @param escapesDigits {@code true} if the escaper may modify the string representation of a number or a boolean
+     * @return the result node
+     */
+    static ResultNode create(Kind kind, Object value, Escaper escaper, boolean escapesDigits) {
+        switch (kind) {
+            case STRING:
+                return text((String) value, escaper);
+            case INTEGER:
+                return escapesDigits ? text(value.toString(), escaper) : ofInt(((Number) value).intValue());
+            case LONG:
+                long longValue = (Long) value;
+                if (escapesDigits) {
+                    return text(Long.toString(longValue), escaper);
+                }
+                return longValue >= MIN_CACHED_INT && longValue <= MAX_CACHED_INT ? ofInt((int) longValue)
+                        : new TextResultNode(Long.toString(longValue));
+            case BOOLEAN:
+                if (escapesDigits) {
+                    return text(value.toString(), escaper);
+                }
+                return (Boolean) value ? TRUE : FALSE;
+            case CHAR_SEQUENCE:
+                return text(value.toString(), escaper);
+            default:
+                return new SingleResultNode(value, escaper);
+        }
+    }
+
+    static ResultNode text(String value, Escaper escaper) {
+        return new TextResultNode(escaper != null ? escaper.escape(value) : value);
+    }
+
+    private static ResultNode ofInt(int value) {
+        if (value >= MIN_CACHED_INT && value <= MAX_CACHED_INT) {
+            return INTS[value - MIN_CACHED_INT];
+        }
+        return new TextResultNode(Integer.toString(value));
+    }
+
+    /**
+     * The value is already escaped.
+     */
+    static final class TextResultNode implements ResultNode {
+
+        private final String value;
+
+        TextResultNode(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void process(Consumer<String> resultConsumer) {
+            resultConsumer.accept(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.github.mkouba.qute;
+
+import com.github.mkouba.qute.Results.Result;
+
+/**
+ * Provides direct access to the value of an expression, bypassing the value resolvers. An accessor is usually generated
+ * at build time for an expression whose first part refers to a declared template parameter.
+ * 
+ * @see EngineBuilder#addValueAccessor(String, String, ValueAccessor)
+ */
+@FunctionalInterface
+public interface ValueAccessor {
+
+    /**
+     * 
+     * @param base the object the first part of the expression is resolved to
+     * @return the value of the expression, {@code null} if an intermediate result is {@code null}, or
+     *         {@link Result#NOT_FOUND} if the accessor is not applicable, i.e. the base is not of the declared type
+     */
+    Object access(Object base);
+
+}
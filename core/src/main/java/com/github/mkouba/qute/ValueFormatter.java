@@ -0,0 +1,24 @@
+package com.github.mkouba.qute;
+
+import java.util.Locale;
+
+/**
+ * Formats the result of an expression before it's written to the output. Formatters are registered per type and must be
+ * thread-safe.
+ * 
+ * @param <T>
+ * @see EngineBuilder#addFormatter(Class, ValueFormatter)
+ * @see Formatters
+ */
+@FunctionalInterface
+public interface ValueFormatter<T> {
+
+    /**
+     * 
+     * @param value
+     * @param locale
+     * @return the formatted value
+     */
+    String format(T value, Locale locale);
+
+}
@@ -8,6 +8,8 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import com.github.mkouba.qute.Results.Result;
+
 /**
  * Value resolver.
  */
@@ -16,6 +18,9 @@ public interface ValueResolver extends Resolver {
     int DEFAULT_PRIORITY = 1;
 
     /**
+     * Resolvers with higher priority are used first. Resolvers with the same priority are used in the order of
+     * registration.
+     * 
      * @return the priority value
      */
     default int getPriority() {
@@ -38,8 +43,10 @@ public interface ValueResolver extends Resolver {
     class Builder<BASE> implements Supplier<ValueResolver> {
 
         private Predicate<EvalContext> appliesTo;
-        private Function<EvalContext, CompletionStage<Object>> resolve;
+        private Function<EvalContext, Object> resolveSync;
+        private Function<EvalContext, CompletionStage<Object>> resolveAsync;
         private int priority;
+        private boolean pure;
 
         public Builder(Class<BASE> match) {
             this.appliesTo = new Predicate<EvalContext>() {
@@ -67,20 +74,30 @@ public interface ValueResolver extends Resolver {
 
         @SuppressWarnings("unchecked")
         public Builder<BASE> resolve(BiFunction<BASE, String, Object> func) {
-            this.resolve = ctx -> {
-                BASE object = (BASE) ctx.getBase();
-                return CompletableFuture.completedFuture(func.apply(object, ctx.getName()));
-            };
-            return this;
+            return resolve(ctx -> func.apply((BASE) ctx.getBase(), ctx.getName()));
         }
 
+        /**
+         * The function may return {@link Result#ASYNC} if an async function is also set.
+         * 
+         * @param func
+         * @return self
+         * @see Resolver#resolveSync(EvalContext)
+         */
         public Builder<BASE> resolve(Function<EvalContext, Object> func) {
-            this.resolve = ctx -> CompletableFuture.completedFuture(func.apply(ctx));
+            this.resolveSync = func;
             return this;
         }
 
+        /**
+         * If a sync function is also set then the async function is only used if the sync function returns
+         * {@link Result#ASYNC}. However, it must be able to handle all cases.
+         * 
+         * @param func
+         * @return self
+         */
         public Builder<BASE> resolveAsync(Function<EvalContext, CompletionStage<Object>> func) {
-            this.resolve = func;
+            this.resolveAsync = func;
             return this;
         }
 
@@ -89,14 +106,35 @@ public interface ValueResolver extends Resolver {
             return this;
         }
 
+        /**
+         * 
+         * @return self
+         * @see Resolver#isPure()
+         */
+        public Builder<BASE> pure() {
+            this.pure = true;
+            return this;
+        }
+
         public ValueResolver build() {
             Objects.requireNonNull(appliesTo);
-            Objects.requireNonNull(resolve);
+            if (resolveSync == null && resolveAsync == null) {
+                throw new IllegalStateException("No resolve function set");
+            }
+            Function<EvalContext, Object> resolveSync = this.resolveSync;
+            Function<EvalContext, CompletionStage<Object>> resolveAsync = this.resolveAsync;
+            boolean pure = this.pure;
             return new ValueResolver() {
 
                 @Override
                 public CompletionStage<Object> resolve(EvalContext context) {
-                    return resolve.apply(context);
+                    return resolveAsync != null ? resolveAsync.apply(context)
+                            : CompletableFuture.completedFuture(resolveSync.apply(context));
+                }
+
+                @Override
+                public Object resolveSync(EvalContext context) {
+                    return resolveSync != null ? resolveSync.apply(context) : Result.ASYNC;
                 }
 
                 @Override
@@ -104,6 +142,11 @@ public interface ValueResolver extends Resolver {
                     return priority;
                 }
 
+                @Override
+                public boolean isPure() {
+                    return pure;
+                }
+
                 @Override
                 public boolean appliesTo(EvalContext context) {
                     return appliesTo.test(context);
@@ -12,8 +12,11 @@ public final class ValueResolvers {
 
     static final String THIS = "this";
 
+    static final int RAW_PRIORITY = ReflectionValueResolver.PRIORITY - 1;
+
     public static ValueResolver collectionResolver() {
-        return ValueResolver.match(Collection.class).resolveAsync(ValueResolvers::collectionResolveAsync).build();
+        return ValueResolver.match(Collection.class).resolve(ValueResolvers::collectionResolve)
+                .resolveAsync(ValueResolvers::collectionResolveAsync).build();
     }
 
     public static ValueResolver thisResolver() {
@@ -24,8 +27,8 @@ public final class ValueResolvers {
      * {@code foo.or(bar)},{@code foo or true},{@code name ?: 'elvis'}
      */
     public static ValueResolver orResolver() {
-        return ValueResolver.match(Object.class).andAppliesTo(ValueResolvers::orAppliesTo).resolveAsync(ValueResolvers::orResolveAsync)
-                .build();
+        return ValueResolver.match(Object.class).andAppliesTo(ValueResolvers::orAppliesTo).resolve(ValueResolvers::orResolve)
+                .resolveAsync(ValueResolvers::orResolveAsync).build();
     }
 
     public static ValueResolver mapEntryResolver() {
@@ -33,39 +36,85 @@ public final class ValueResolvers {
     }
     
     public static ValueResolver mapResolver() {
-        return ValueResolver.match(Map.class).resolveAsync(ValueResolvers::mapResolveAsync).build();
+        return ValueResolver.match(Map.class).resolve(ValueResolvers::mapResolve).resolveAsync(ValueResolvers::mapResolveAsync)
+                .build();
+    }
+
+    /**
+     * {@code item.description.raw}, {@code item.description.safe}
+     * <p>
+     * The resolver has the lowest priority of the built-in resolvers, i.e. a property named "raw" or "safe" is resolved
+     * by the other resolvers first.
+     * 
+     * @return a new resolver that marks the base object as a {@link RawString}, i.e. the value is not escaped
+     */
+    public static ValueResolver rawResolver() {
+        return ValueResolver.match(Object.class).andAppliesTo(ValueResolvers::rawAppliesTo)
+                .resolve(c -> new RawString(c.getBase().toString())).priority(RAW_PRIORITY).build();
+    }
+
+    /**
+     * The resolver is not added by default.
+     *
+     * @return a new resolver that accesses public members of any object
+     * @see ReflectionValueResolver
+     */
+    public static ValueResolver reflectionResolver() {
+        return new ReflectionValueResolver();
     }
 
     // helper methods
 
-    private static CompletionStage<Object> collectionResolveAsync(EvalContext context) {
+    private static Object collectionResolve(EvalContext context) {
         Collection<?> collection = (Collection<?>) context.getBase();
         switch (context.getName()) {
             case "size":
-                return CompletableFuture.completedFuture(collection.size());
+                return collection.size();
             case "isEmpty":
             case "empty":
-                return CompletableFuture.completedFuture(collection.isEmpty());
+                return collection.isEmpty();
             case "contains":
                 if (context.getParams().size() == 1) {
-                    return context.evaluate(context.getParams().get(0)).thenCompose(e -> {
-                        return CompletableFuture.completedFuture(collection.contains(e));
-                    });
+                    // Params must be evaluated
+                    return Result.ASYNC;
                 }
+                return Result.NOT_FOUND;
             default:
-                return Results.NOT_FOUND;
+                return Result.NOT_FOUND;
+        }
+    }
+
+    private static CompletionStage<Object> collectionResolveAsync(EvalContext context) {
+        Object result = collectionResolve(context);
+        if (result != Result.ASYNC) {
+            return CompletableFuture.completedFuture(result);
         }
+        // contains(element)
+        Collection<?> collection = (Collection<?>) context.getBase();
+        return context.evaluate(context.getParams().get(0)).thenApply(collection::contains);
     }
 
     private static boolean thisAppliesTo(EvalContext context) {
         return THIS.equals(context.getName());
     }
 
+    private static boolean rawAppliesTo(EvalContext context) {
+        return context.getParams().isEmpty() && ("raw".equals(context.getName()) || "safe".equals(context.getName()));
+    }
+
     private static boolean orAppliesTo(EvalContext context) {
         return context.getParams().size() == 1
                 && ("?:".equals(context.getName()) || "or".equals(context.getName()));
     }
 
+    private static Object orResolve(EvalContext context) {
+        if (context.getBase() == null || Results.Result.NOT_FOUND.equals(context.getBase())) {
+            // Params must be evaluated
+            return Result.ASYNC;
+        }
+        return context.getBase();
+    }
+
     private static CompletionStage<Object> orResolveAsync(EvalContext context) {
         if (context.getBase() == null || Results.Result.NOT_FOUND.equals(context.getBase())) {
             return context.evaluate(context.getParams().get(0));
@@ -85,39 +134,52 @@ public final class ValueResolvers {
                 return Result.NOT_FOUND;
         }
     }
-    
+
     @SuppressWarnings("rawtypes")
-    private static CompletionStage<Object> mapResolveAsync(EvalContext context) {
+    private static Object mapResolve(EvalContext context) {
         Map map = (Map) context.getBase();
+        if (map instanceof LazyData && ((LazyData) map).isAsync(context.getName())) {
+            return Result.ASYNC;
+        }
         if (map.containsKey(context.getName())) {
-            return CompletableFuture.completedFuture(map.get(context.getName()));
+            return map.get(context.getName());
         }
         switch (context.getName()) {
             case "keys":
             case "keySet":
-                return CompletableFuture.completedFuture(map.keySet());
+                return map.keySet();
             case "values":
-                return CompletableFuture.completedFuture(map.values());
+                return map.values();
             case "size":
-                return CompletableFuture.completedFuture(map.size());
+                return map.size();
             case "empty":
             case "isEmpty":
-                return CompletableFuture.completedFuture(map.isEmpty());
+                return map.isEmpty();
             case "get":
-                if (context.getParams().size() == 1) {
-                    return context.evaluate(context.getParams().get(0)).thenCompose(k -> {
-                        return CompletableFuture.completedFuture(map.get(k));
-                    });
-                }
             case "containsKey":
                 if (context.getParams().size() == 1) {
-                    return context.evaluate(context.getParams().get(0)).thenCompose(k -> {
-                        return CompletableFuture.completedFuture(map.containsKey(k));
-                    });
+                    // Params must be evaluated
+                    return Result.ASYNC;
                 }
+                return Result.NOT_FOUND;
             default:
-                return Results.NOT_FOUND;
+                return Result.NOT_FOUND;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static CompletionStage<Object> mapResolveAsync(EvalContext context) {
+        Object result = mapResolve(context);
+        if (result != Result.ASYNC) {
+            return CompletableFuture.completedFuture(result);
+        }
+        Map map = (Map) context.getBase();
+        if (map instanceof LazyData && ((LazyData) map).isAsync(context.getName())) {
+            return ((LazyData) map).getAsync(context.getName());
         }
+        // get(key) or containsKey(key)
+        CompletionStage<Object> key = context.evaluate(context.getParams().get(0));
+        return "get".equals(context.getName()) ? key.thenApply(map::get) : key.thenApply(map::containsKey);
     }
 
 }
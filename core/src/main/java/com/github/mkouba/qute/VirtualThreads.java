@@ -0,0 +1,45 @@
+package com.github.mkouba.qute;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The sources are compiled for Java 8, so the virtual thread executor must be looked up reflectively.
+ */
+final class VirtualThreads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 
+     * @return a new executor that starts a virtual thread for each task if supported by the JVM, a new cached thread pool
+     *         with daemon threads otherwise
+     */
+    static Executor newExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException e) {
+            LOGGER.debug("Virtual threads not supported - using a cached thread pool");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // E.g. virtual threads are a preview feature that is not enabled
+            LOGGER.debug("Virtual threads not available - using a cached thread pool", e);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "qute-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -20,8 +20,8 @@ public class CollectionResolverTest {
                 .addValueResolver(ValueResolvers.collectionResolver())
                 .build();
 
-        assertEquals("1,false,true",
-                engine.parse("{this.size},{this.isEmpty},{this.contains('Lu')}").render(list));
+        assertEquals("1,false,true,NOT_FOUND",
+                engine.parse("{this.size},{this.isEmpty},{this.contains('Lu')},{this.contains}").render(list));
     }
 
 }
@@ -0,0 +1,109 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class DeadlineTest {
+
+    @Test
+    public void testDeadlineVisibleToResolvers() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remaining")
+                        .resolve(c -> c.getDeadline().remaining(TimeUnit.SECONDS)).build())
+                .build();
+        Template template = engine.parse("{this.remaining}");
+        long remaining = Long.parseLong(template.instance().data("foo").timeout(1, TimeUnit.MINUTES).render());
+        assertTrue(remaining > 50 && remaining <= 60);
+    }
+
+    @Test
+    public void testTimeoutCancelsOutstandingStages() {
+        List<CompletableFuture<Object>> pending = Collections.synchronizedList(new ArrayList<>());
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("never").resolveAsync(c -> {
+                    CompletableFuture<Object> never = new CompletableFuture<>();
+                    pending.add(never);
+                    return never;
+                }).build())
+                .build();
+        CompletableFuture<Void> result = engine.parse("{this.never}").instance().data("foo")
+                .timeout(50, TimeUnit.MILLISECONDS).render(s -> {
+                }).toCompletableFuture();
+        CompletionException expected = assertThrows(CompletionException.class, result::join);
+        assertTrue(expected.getCause() instanceof TimeoutException);
+        assertEquals(1, pending.size());
+        assertTrue(pending.get(0).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testTimeoutSchedulerShared() {
+        for (int i = 0; i < 3; i++) {
+            Engine engine = Engine.builder().addDefaultValueResolvers()
+                    .addValueResolver(ValueResolver.match(String.class).andMatch("never")
+                            .resolveAsync(c -> new CompletableFuture<>()).build())
+                    .build();
+            CompletableFuture<Void> result = engine.parse("{this.never}").instance().data("foo")
+                    .timeout(10, TimeUnit.MILLISECONDS).render(s -> {
+                    }).toCompletableFuture();
+            assertThrows(CompletionException.class, result::join);
+        }
+        // Engines are never closed - no thread is started per engine
+        assertEquals(1, Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("qute-timeout")).count());
+    }
+
+    @Test
+    public void testCancellation() {
+        AtomicInteger iterations = new AtomicInteger();
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("slow").resolveAsync(c -> {
+                    iterations.incrementAndGet();
+                    return first;
+                }).build())
+                .build();
+        CompletableFuture<Void> result = engine.parse("{#each this}{this.slow}{/each}").instance()
+                .data(Arrays.asList(new String("foo"), new String("bar"), new String("baz"))).render(s -> {
+                }).toCompletableFuture();
+        assertEquals(3, iterations.get());
+        // E.g. the client disconnected
+        result.cancel(false);
+        assertTrue(first.isCompletedExceptionally());
+        assertThrows(CancellationException.class, result::join);
+    }
+
+    @Test
+    public void testLoopStopsAfterDeadline() {
+        AtomicInteger iterations = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("slow").resolve(c -> {
+                    iterations.incrementAndGet();
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "ok";
+                }).build())
+                .build();
+        assertThrows(IllegalStateException.class, () -> engine.parse("{#each this}{this.slow}{/each}").instance()
+                .data(Collections.nCopies(5, "foo")).timeout(10, TimeUnit.MILLISECONDS).render());
+        // No new iteration is started once the deadline expires
+        assertEquals(1, iterations.get());
+    }
+
+}
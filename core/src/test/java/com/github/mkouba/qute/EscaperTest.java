@@ -0,0 +1,73 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+public class EscaperTest {
+
+    @Test
+    public void testEscapers() {
+        String clean = "Hello world!";
+        assertSame(clean, Escapers.HTML.escape(clean));
+        assertSame(clean, Escapers.JSON.escape(clean));
+        assertEquals("&lt;a href=&quot;foo&quot;&gt;Tom &amp; Jerry&#39;s&lt;/a&gt;",
+                Escapers.HTML.escape("<a href=\"foo\">Tom & Jerry's</a>"));
+        assertEquals("foo&#32;onclick&#61;&#96;bar&#96;", Escapers.ATTRIBUTE.escape("foo onclick=`bar`"));
+        assertEquals("\\\"foo\\\"\\n\\u0001\\\\ \\u003c/script\\u003e",
+                Escapers.JSON.escape("\"foo\"\n\u0001\\ </script>"));
+        assertEquals("\\'foo\\' \\u003c\\/script\\u003e \\u2028", Escapers.JS.escape("'foo' </script> \u2028"));
+        assertEquals("a%20b%2Fc-d.e_f~%C3%A9%F0%9F%98%80", Escapers.URL.escape("a b/c-d.e_f~\u00e9\ud83d\ude00"));
+    }
+
+    @Test
+    public void testContentType() {
+        Map<String, String> templates = new HashMap<>();
+        templates.put("foo.html", "<h1>{title}</h1><p>{body.raw}</p>");
+        templates.put("foo.json", "[\"{title}\"]");
+        templates.put("foo.txt", "{title}");
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers()
+                .addLocator(id -> Optional.ofNullable(templates.get(id)).map(StringReader::new)).build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", "Tom & \"Jerry\"");
+        data.put("body", "<b>bold</b>");
+        assertEquals("<h1>Tom &amp; &quot;Jerry&quot;</h1><p><b>bold</b></p>", engine.getTemplate("foo.html").render(data));
+        assertEquals("[\"Tom \\u0026 \\\"Jerry\\\"\"]", engine.getTemplate("foo.json").render(data));
+        assertEquals("Tom & \"Jerry\"", engine.getTemplate("foo.txt").render(data));
+        // Templates without id are not escaped
+        assertEquals("<b>bold</b>", engine.parse("{body}").render(data));
+    }
+
+    @Test
+    public void testCustomEscaper() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addEscaper("html", Escapers.NONE)
+                .addEscaper("txt", String::toUpperCase)
+                .addLocator(id -> Optional.of(new StringReader("{this}:{this.safe}"))).build();
+        assertEquals("<b>:<b>", engine.getTemplate("foo.html").render("<b>"));
+        assertEquals("FOO:foo", engine.getTemplate("foo.txt").render("foo"));
+        // RawString returned from a resolver
+        assertEquals("<b>:<b>", engine.getTemplate("bar.xml").render(new RawString("<b>")));
+    }
+
+    @Test
+    public void testRawPropertyNotShadowed() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("safe").resolve((s, n) -> "custom").build())
+                .addLocator(id -> Optional.of(new StringReader("{this.raw}:{this.name.raw}"))).build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("raw", "<i>");
+        data.put("name", "<b>");
+        // The map entry takes precedence
+        assertEquals("&lt;i&gt;:<b>", engine.getTemplate("foo.html").render(data));
+        // A custom resolver takes precedence
+        assertEquals("custom", engine.parse("{this.safe}").render("<b>"));
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class FormatterTest {
+
+    @Test
+    public void testFormatters() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers()
+                .locale(Locale.GERMANY)
+                .addFormatter(Number.class, Formatters.number("#,##0.00"))
+                .addFormatter(TemporalAccessor.class, Formatters.temporal("d. MMMM yyyy"))
+                .addFormatter(Integer.class, (value, locale) -> "int:" + value)
+                .build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("price", new BigDecimal("1234.5"));
+        data.put("count", 10);
+        data.put("date", LocalDate.of(2019, 6, 1));
+        data.put("name", "foo");
+        // Raw strings are not formatted
+        assertEquals("1.234,50 int:10 1. Juni 2019 foo 1234.5",
+                engine.parse("{price} {count} {date} {name} {price.raw}").render(data));
+    }
+
+    @Test
+    public void testNumberFormatter() {
+        ValueFormatter<Number> formatter = Formatters.number("0.0");
+        assertEquals("1.5", formatter.format(1.46, Locale.ENGLISH));
+        assertEquals("1,5", formatter.format(1.46, Locale.GERMAN));
+        assertEquals("10.0", formatter.format(10L, Locale.ENGLISH));
+    }
+
+    @Test
+    public void testNumberFormatterConcurrent() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        ValueFormatter<Number> formatter = Formatters.number(locale -> {
+            created.incrementAndGet();
+            return new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(locale));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                long value = i * 1000L;
+                results.add(executor.submit(() -> formatter.format(value, Locale.ENGLISH)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(String.format(Locale.ENGLISH, "%,d.00", i * 1000L), results.get(i).get());
+            }
+        } catch (ExecutionException e) {
+            throw new AssertionError(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        // The prototype is created once per locale
+        assertEquals(1, created.get());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class InFlightLimitTest {
+
+    @Test
+    public void testLimit() {
+        List<CompletableFuture<Object>> pending = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().maxInFlightResolvers(2)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote").resolveAsync(c -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    CompletableFuture<Object> result = new CompletableFuture<>();
+                    pending.add(result);
+                    return result.whenComplete((r, t) -> inFlight.decrementAndGet());
+                }).build())
+                .build();
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add("item" + i);
+        }
+        StringBuilder builder = new StringBuilder();
+        CompletableFuture<Void> result = engine.parse("{#each this}{this.remote}{/each}").instance().data(items)
+                .render(builder::append).toCompletableFuture();
+        for (int i = 0; i < 10; i++) {
+            // Only two invocations were started
+            assertEquals(i + 2 > 10 ? 10 : i + 2, pending.size());
+            pending.get(i).complete(i);
+        }
+        result.join();
+        assertEquals("0123456789", builder.toString());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    public void testVirtualMethodsNotLimited() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().maxInFlightResolvers(1)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote")
+                        .resolveAsync(c -> CompletableFuture.supplyAsync(() -> "remote")).build())
+                .build();
+        // or() holds no permit while its param is evaluated
+        assertEquals("remote", engine.parse("{missing.or(remote)}").render("foo"));
+    }
+
+    @Test
+    public void testSynchronousCompletionsDoNotOverflowStack() {
+        CompletableFuture<Object> slow = new CompletableFuture<>();
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().maxInFlightResolvers(1)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote")
+                        .resolveAsync(c -> "item0".equals(c.getBase()) ? slow
+                                : CompletableFuture.completedFuture("."))
+                        .build())
+                .build();
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            items.add("item" + i);
+        }
+        StringBuilder builder = new StringBuilder();
+        CompletableFuture<Void> result = engine.parse("{#each this}{this.remote}{/each}").instance().data(items)
+                .render(builder::append).toCompletableFuture();
+        // All other invocations are queued behind the slow one
+        slow.complete("0");
+        result.join();
+        assertEquals(5000, builder.length());
+    }
+
+}
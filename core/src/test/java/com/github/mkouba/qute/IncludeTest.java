@@ -1,9 +1,18 @@
 package com.github.mkouba.qute;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 
@@ -51,4 +60,64 @@ public class IncludeTest {
                 engine.parse("{#include detail}{/include}").render(data));
     }
 
+    @Test
+    public void testReplacedTemplateRelinked() {
+        Engine engine = Engine.builder().addSectionHelper(new IncludeSectionHelper.Factory())
+                .addValueResolver(ValueResolvers.thisResolver())
+                .build();
+        engine.putTemplate("detail", engine.parse("{this}"));
+        Template template = engine.parse("<{#include detail}{/include}>");
+        assertEquals("<foo>", template.render("foo"));
+        engine.putTemplate("detail", engine.parse("[{this}]"));
+        assertEquals("<[foo]>", template.render("foo"));
+    }
+
+    @Test
+    public void testDependenciesPreloaded() {
+        Map<String, String> sources = new HashMap<>();
+        sources.put("page", "{#include header}{/include}{#include footer}{/include}");
+        sources.put("header", "{#include footer}{/include}");
+        sources.put("footer", "footer");
+        List<String> located = new ArrayList<>();
+        Engine engine = Engine.builder().addSectionHelper(new IncludeSectionHelper.Factory())
+                .addLocator(id -> {
+                    located.add(id);
+                    return Optional.ofNullable(sources.get(id)).map(StringReader::new);
+                })
+                .build();
+        Template page = engine.getTemplate("page");
+        assertEquals(Arrays.asList("page", "header", "footer"), located);
+        assertEquals(new HashSet<>(Arrays.asList("header", "footer")), ((TemplateImpl) page).getDependencies());
+        assertEquals("footerfooter", page.render(null));
+        assertEquals(3, located.size());
+    }
+
+    @Test
+    public void testFlattenIncludes() {
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers().flattenIncludes().build();
+        engine.putTemplate("base",
+                engine.parse("<title>{#insert title}Default{/insert}</title>{#insert body}{/insert}<footer>{#insert footer}{this}{/insert}</footer>"));
+        Template page = engine.parse("{#include base}{:title}{this}{/title}{:body}{#for i in items}{this}{/for}{/body}{/include}");
+        Map<String, Object> data = new HashMap<>();
+        data.put("items", Arrays.asList(1, 2));
+        assertEquals("<title>" + data + "</title>12<footer>" + data + "</footer>", page.render(data));
+        SectionBlock flattened = IncludeSectionHelper.flatten(((TemplateImpl) engine.getTemplate("base")).root,
+                Collections.emptyMap());
+        assertEquals(3, flattened.nodes.size());
+        assertTrue(flattened.nodes.get(0) instanceof TextNode);
+    }
+
+    @Test
+    public void testFlattenNestedInsert() {
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers().flattenIncludes().build();
+        Template base = engine.parse("{#for i in items}{#insert title}Default{/insert}{/for}");
+        engine.putTemplate("base", base);
+        // Cannot be flattened
+        assertNull(IncludeSectionHelper.flatten(((TemplateImpl) base).root, Collections.emptyMap()));
+        // Blocks of an outer include section
+        engine.putTemplate("layout", engine.parse("[{#insert title}{/insert}]"));
+        engine.putTemplate("middle", engine.parse("{#include layout}{/include}"));
+        assertEquals("[Title]", engine.parse("{#include middle}{:title}Title{/title}{/include}").render(null));
+    }
+
 }
@@ -0,0 +1,81 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class LazyDataTest {
+
+    @Test
+    public void testComputedData() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().build();
+        Template template = engine.parse("{#if admin}{stats}:{stats}:{data:stats}{/if}{name}");
+        AtomicInteger computed = new AtomicInteger();
+        assertEquals("Foo", template.instance().data("name", "Foo").data("admin", false)
+                .computedData("stats", computed::incrementAndGet).render());
+        // Branch not taken
+        assertEquals(0, computed.get());
+        assertEquals("1:1:1Foo", template.instance().data("name", "Foo").data("admin", true)
+                .computedData("stats", computed::incrementAndGet).render());
+        // Memoized per rendering
+        assertEquals("2:2:2Foo", template.instance().data("name", "Foo").data("admin", true)
+                .computedData("stats", computed::incrementAndGet).render());
+    }
+
+    @Test
+    public void testNullAndFailureMemoized() {
+        AtomicInteger computed = new AtomicInteger();
+        Map<String, Object> entries = new HashMap<>();
+        entries.put("null", new LazyData.Computed(() -> {
+            computed.incrementAndGet();
+            return null;
+        }));
+        entries.put("failure", new LazyData.Computed(() -> {
+            computed.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        entries.put("asyncFailure", new LazyData.Async(() -> {
+            computed.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        LazyData data = new LazyData(entries);
+        assertNull(data.get("null"));
+        assertNull(data.get("null"));
+        assertEquals(1, computed.get());
+        assertThrows(IllegalStateException.class, () -> data.get("failure"));
+        assertThrows(IllegalStateException.class, () -> data.get("failure"));
+        assertEquals(2, computed.get());
+        assertTrue(data.getAsync("asyncFailure").toCompletableFuture().isCompletedExceptionally());
+        assertTrue(data.getAsync("asyncFailure").toCompletableFuture().isCompletedExceptionally());
+        assertEquals(3, computed.get());
+    }
+
+    @Test
+    public void testAsyncData() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().build();
+        AtomicInteger computed = new AtomicInteger();
+        assertEquals("3 items: 123", engine.parse("{items.size} items: {#each items}{this}{/each}").instance()
+                .asyncData("items", () -> {
+                    computed.incrementAndGet();
+                    return CompletableFuture.completedFuture(Arrays.asList(1, 2, 3));
+                }).render());
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    public void testDataObjectAndEntries() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().build();
+        assertThrows(IllegalStateException.class, () -> engine.parse("{foo}").instance().data("foo").data("foo", 1));
+        assertThrows(IllegalStateException.class, () -> engine.parse("{foo}").instance().data("foo", 1).data("foo"));
+    }
+
+}
@@ -3,9 +3,14 @@ package com.github.mkouba.qute;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -65,4 +70,52 @@ public class LoopSectionTest {
                 engine.parse("{#each this}{this}:{/each}").render(data.stream().filter(e -> !e.startsWith("b"))));
     }
 
+    @Test
+    public void testBulkResolver() {
+        AtomicInteger bulkCalls = new AtomicInteger();
+        AtomicInteger singleCalls = new AtomicInteger();
+        BulkValueResolver squareResolver = new BulkValueResolver() {
+
+            @Override
+            public boolean appliesTo(EvalContext context) {
+                return context.getBase() instanceof Integer && context.getName().equals("square");
+            }
+
+            @Override
+            public CompletionStage<Object> resolve(EvalContext context) {
+                singleCalls.incrementAndGet();
+                Integer base = (Integer) context.getBase();
+                return CompletableFuture.completedFuture(base * base);
+            }
+
+            @Override
+            public CompletionStage<List<Object>> resolveAll(List<Object> bases, String name) {
+                bulkCalls.incrementAndGet();
+                return CompletableFuture
+                        .completedFuture(bases.stream().map(b -> (Integer) b * (Integer) b).collect(Collectors.toList()));
+            }
+        };
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers()
+                .addValueResolver(squareResolver).build();
+
+        List<Integer> data = new ArrayList<>();
+        data.add(1);
+        data.add(2);
+        data.add(3);
+        assertEquals("1:1,2:4,3:9",
+                engine.parse("{#for i in this}{i:this}:{#if true}{i:square}{/if}{#if iter:hasNext},{/if}{/for}")
+                        .render(data));
+        assertEquals(1, bulkCalls.get());
+        assertEquals(0, singleCalls.get());
+
+        assertEquals("149", engine.parse("{#each this}{square}{/each}").render(data));
+        assertEquals(2, bulkCalls.get());
+        assertEquals(0, singleCalls.get());
+
+        // Single element - no bulk resolution
+        assertEquals("4", engine.parse("{#each this}{square}{/each}").render(Collections.singletonList(2)));
+        assertEquals(2, bulkCalls.get());
+        assertEquals(1, singleCalls.get());
+    }
+
 }
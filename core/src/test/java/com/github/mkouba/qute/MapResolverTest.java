@@ -23,6 +23,7 @@ public class MapResolverTest {
         assertEquals("Lu,1,false,true,name",
                 engine.parse("{this.name},{this.size},{this.empty},{this.containsKey('name')},{#each this.keys}{this}{/each}")
                         .render(map));
+        assertEquals("Lu:NOT_FOUND:NOT_FOUND", engine.parse("{this.get('name')}:{this.get}:{this.containsKey}").render(map));
     }
 
 }
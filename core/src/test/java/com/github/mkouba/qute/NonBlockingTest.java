@@ -0,0 +1,49 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class NonBlockingTest {
+
+    @Test
+    public void testNonBlockingThread() {
+        AtomicReference<CompletableFuture<Object>> remote = new AtomicReference<>();
+        Engine engine = Engine.builder().addDefaultValueResolvers().nonBlockingThreadCheck(() -> true)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote").resolveAsync(c -> {
+                    remote.set(new CompletableFuture<>());
+                    return remote.get();
+                }).build())
+                .build();
+        // No need to block
+        assertEquals("foo", engine.parse("{this}").render("foo"));
+        Template template = engine.parse("{this.remote}");
+        IllegalStateException expected = assertThrows(IllegalStateException.class, () -> template.render("foo"));
+        assertTrue(expected.getMessage().contains("renderAsync()"));
+        // The rendering is cancelled
+        assertTrue(remote.get().isCancelled());
+        CompletionStage<String> result = template.instance().data("foo").renderAsync();
+        remote.get().complete("ok");
+        assertEquals("ok", result.toCompletableFuture().join());
+    }
+
+    @Test
+    public void testGetTemplateAsync() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addLocator(id -> "foo".equals(id) ? Optional.of(new StringReader("{this}")) : Optional.empty())
+                .build();
+        assertEquals("bar",
+                engine.getTemplateAsync("foo").thenApply(t -> t.render("bar")).toCompletableFuture().join());
+        assertNull(engine.getTemplateAsync("baz").toCompletableFuture().join());
+    }
+
+}
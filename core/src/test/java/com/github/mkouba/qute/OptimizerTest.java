@@ -0,0 +1,60 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+public class OptimizerTest {
+
+    @Test
+    public void testTextAndLiterals() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().build();
+        Template template = engine.parse("Hello {! comment !}{'world'}{! another }{true}{1} {name}!");
+        List<TemplateNode> nodes = rootNodes(template);
+        assertEquals(3, nodes.size());
+        assertEquals("Hello worldtrue1 ", ((TextNode) nodes.get(0)).value);
+        assertTrue(nodes.get(1) instanceof ExpressionNode);
+        assertEquals("Hello worldtrue1 NOT_FOUND!", template.render(null));
+    }
+
+    @Test
+    public void testLiteralConditions() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().build();
+        Template template = engine.parse("{#if true}a{#if false}b{:else if true}c{:else}d{/if}{/if}"
+                + "{#if false}e{/if}{#if foo}{/if}{#each items}{/each}");
+        List<TemplateNode> nodes = rootNodes(template);
+        assertEquals(1, nodes.size());
+        assertEquals("ac", ((TextNode) nodes.get(0)).value);
+        assertEquals("ac", template.render(null));
+        // Non-literal condition
+        template = engine.parse("{#if false}a{:else if foo}b{:else}c{/if}");
+        assertTrue(rootNodes(template).get(0) instanceof SectionNode);
+        assertEquals("c", template.render(null));
+    }
+
+    @Test
+    public void testEscapedLiteral() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader("{'<b>'}"))).build();
+        assertEquals("&lt;b&gt;", engine.getTemplate("foo.html").render(null));
+    }
+
+    @Test
+    public void testProfilingDisablesFolding() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().enableProfiling()
+                .build();
+        Template template = engine.parse("{#if true}{'foo'}{/if}");
+        assertTrue(rootNodes(template).get(0) instanceof SectionNode);
+        assertEquals("foo", template.render(null));
+    }
+
+    private List<TemplateNode> rootNodes(Template template) {
+        return ((TemplateImpl) template).root.blocks.get(0).nodes;
+    }
+
+}
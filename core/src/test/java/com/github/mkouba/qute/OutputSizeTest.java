@@ -0,0 +1,47 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OutputSizeTest {
+
+    @Test
+    public void testSizeHint() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().build();
+        String text = String.join("", Collections.nCopies(100, "a"));
+        Template template = engine.parse(text + "{this}");
+        // Static text and the default length of an expression
+        assertEquals(116, template.getOutputSizeHint());
+        String value = String.join("", Collections.nCopies(1000, "b"));
+        for (int i = 0; i < 20; i++) {
+            template.render(value);
+        }
+        // Converges to the actual length
+        int hint = template.getOutputSizeHint();
+        assertTrue(hint > 1050 && hint <= 1100, "Unexpected hint: " + hint);
+    }
+
+    @Test
+    public void testChunks() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().outputChunkSize(10)
+                .build();
+        Template template = engine.parse("{#each this}{this},{/each}");
+        List<String> chunks = new ArrayList<>();
+        template.render(Collections.nCopies(10, "ab"), chunks::add).toCompletableFuture().join();
+        assertEquals(4, chunks.size());
+        assertEquals("ab,ab,ab,", chunks.get(0));
+        assertEquals("ab,ab,ab,ab,ab,ab,ab,ab,ab,ab,", String.join("", chunks));
+        // A long string is not copied
+        chunks.clear();
+        template.render(Collections.singletonList("abcdefghijkl"), chunks::add).toCompletableFuture().join();
+        assertEquals(2, chunks.size());
+        assertEquals("abcdefghijkl", chunks.get(0));
+    }
+
+}
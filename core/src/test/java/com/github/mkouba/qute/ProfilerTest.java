@@ -0,0 +1,66 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.qute.Profiler.Entry;
+
+public class ProfilerTest {
+
+    @Test
+    public void testProfiling() {
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader("{#each this}\n  {this}:{#if this}ok{/if}\n{/each}")))
+                .enableProfiling().build();
+
+        List<Boolean> data = new ArrayList<>();
+        data.add(true);
+        data.add(true);
+        data.add(false);
+        Template template = engine.getTemplate("foo.html");
+        assertEquals("\n  true:ok\n\n  true:ok\n\n  false:\n", template.render(data));
+
+        Profiler profiler = engine.getProfiler();
+        assertNotNull(profiler);
+        List<Entry> entries = profiler.getEntries();
+        // root, each, this, if
+        assertEquals(4, entries.size());
+        Entry each = find(entries, "{#each}");
+        assertEquals(1, each.getInvocations());
+        assertEquals("foo.html", each.getOrigin().templateId);
+        assertEquals(1, each.getOrigin().line);
+        assertEquals(1, each.getOrigin().lineCharacter);
+        Entry expression = find(entries, "{this}");
+        assertEquals(3, expression.getInvocations());
+        assertEquals(2, expression.getOrigin().line);
+        assertEquals(3, expression.getOrigin().lineCharacter);
+        Entry ifSection = find(entries, "{#if}");
+        assertEquals(3, ifSection.getInvocations());
+        assertEquals(10, ifSection.getOrigin().lineCharacter);
+
+        assertTrue(profiler.getFlatReport().contains("{this} [foo.html:2:3] invocations=3"));
+        assertTrue(profiler.getTreeReport(template).contains("\n    {#if} [foo.html:2:10] invocations=3"));
+
+        profiler.reset();
+        assertTrue(profiler.getEntries().isEmpty());
+    }
+
+    @Test
+    public void testProfilingDisabled() {
+        assertNull(Engine.builder().build().getProfiler());
+    }
+
+    private Entry find(List<Entry> entries, String description) {
+        return entries.stream().filter(e -> e.getDescription().equals(description)).findFirst().get();
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+public class ReflectionResolverTest {
+
+    @Test
+    public void testResolution() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers()
+                .addValueResolver(ValueResolvers.reflectionResolver()).build();
+        assertEquals("sword:10:true:[1]:SWORD:11:ok:NOT_FOUND",
+                engine.parse("{name}:{price}:{active}:{labels}:{upperName}:{add(1)}:{async}:{missing}")
+                        .render(new Item("sword", 10)));
+        // Declared on a non-public class, no default resolver applies
+        assertEquals("hidden", engine.parse("{get}").render(new Hidden()));
+    }
+
+    @Test
+    public void testPriority() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolvers.reflectionResolver())
+                .addValueResolver(ValueResolver.match(Item.class).andAppliesTo(c -> c.getName().equals("name"))
+                        .resolve(c -> "custom").build())
+                .build();
+        assertEquals("custom:10", engine.parse("{name}:{price}").render(new Item("sword", 10)));
+    }
+
+    @Test
+    public void testOverloadedMethods() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolvers.reflectionResolver())
+                .addNamespaceResolver(NamespaceResolver.builder("param")
+                        .resolveAsync(ctx -> CompletableFuture.supplyAsync(() -> ctx.getName())).build())
+                .build();
+        assertEquals("11:sword!:swordfoo:20", engine.parse("{add(1)}:{add('!')}:{add(param:foo)}:{times(2)}")
+                .render(new Item("sword", 10)));
+    }
+
+    @Test
+    public void testGetterName() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolvers.reflectionResolver()).build();
+        // getaway() is not a getter
+        assertEquals("away:NOT_FOUND", engine.parse("{getaway}:{away}").render(new Item("sword", 10)));
+    }
+
+    @Test
+    public void testParamsEvaluatedOnce() {
+        AtomicInteger evaluated = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolvers.reflectionResolver())
+                .addNamespaceResolver(NamespaceResolver.builder("param").resolveAsync(ctx -> {
+                    evaluated.incrementAndGet();
+                    // Not completed yet when the sync resolution is attempted
+                    CompletableFuture<Object> result = new CompletableFuture<>();
+                    new Thread(() -> {
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        result.complete(2);
+                    }).start();
+                    return result;
+                }).build())
+                .build();
+        assertEquals("12", engine.parse("{add(param:two)}").render(new Item("sword", 10)));
+        assertEquals(1, evaluated.get());
+    }
+
+    public static class Item {
+
+        public final String name;
+
+        private final int price;
+
+        public Item(String name, int price) {
+            this.name = name;
+            this.price = price;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public List<Integer> getLabels() {
+            return Collections.singletonList(1);
+        }
+
+        public String upperName() {
+            return name.toUpperCase();
+        }
+
+        public int add(int value) {
+            return price + value;
+        }
+
+        public String add(String value) {
+            return name + value;
+        }
+
+        public long times(long value) {
+            return price * value;
+        }
+
+        public String getaway() {
+            return "away";
+        }
+
+        public CompletionStage<String> getAsync() {
+            return CompletableFuture.completedFuture("ok");
+        }
+
+    }
+
+    private static class Hidden implements Supplier<String> {
+
+        @Override
+        public String get() {
+            return "hidden";
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class RenderBytesTest {
+
+    @Test
+    public void testEncoding() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().outputChunkSize(8).build();
+        String value = "aé€😀";
+        String expected = "Hello " + value + " " + value + "!";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> chunks = new ArrayList<>();
+        engine.parse("Hello {this} {this}!").instance().data(value).renderBytes(chunk -> {
+            chunks.add(chunk.remaining());
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }).toCompletableFuture().join();
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.stream().allMatch(size -> size <= 8));
+    }
+
+    @Test
+    public void testSurrogatePairSplit() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TemplateImpl.Utf8ChunkConsumer consumer = new TemplateImpl.Utf8ChunkConsumer(chunk -> {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }, 4096);
+        consumer.accept("x\ud83d");
+        consumer.accept("\ude00y");
+        consumer.accept("\ud83d");
+        consumer.flush();
+        assertEquals("x😀y?", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChunkConsumerFailure() throws InterruptedException {
+        Engine engine = Engine.builder().addDefaultValueResolvers().outputChunkSize(8).build();
+        AtomicInteger written = new AtomicInteger();
+        CompletableFuture<Void> result = engine.parse("Hello {this}!").instance().data("world").renderBytes(chunk -> {
+            if (written.incrementAndGet() > 1) {
+                // E.g. the connection was closed after the first chunk was sent
+                throw new IllegalStateException("Connection closed");
+            }
+        }).toCompletableFuture();
+        ExecutionException expected = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("Connection closed", expected.getCause().getMessage());
+        assertEquals(2, written.get());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+public class RenderExecutorTest {
+
+    @Test
+    public void testRenderExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Engine engine = Engine.builder().addDefaultValueResolvers().renderExecutor(executor)
+                    .addValueResolver(ValueResolver.match(String.class).andMatch("thread")
+                            .resolve((s, n) -> Thread.currentThread().getName()).build())
+                    .build();
+            String caller = Thread.currentThread().getName();
+            assertNotEquals(caller, engine.parse("{this.thread}").render("foo"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRenderingResumedOnExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "render"));
+        try {
+            Engine engine = Engine.builder().addDefaultValueResolvers().renderExecutor(executor)
+                    .addValueResolver(ValueResolver.match(String.class).andMatch("async").resolveAsync(ctx -> {
+                        // Completed on a different thread
+                        CompletableFuture<Object> result = new CompletableFuture<>();
+                        new Thread(() -> result.complete(ctx.getBase()), "io").start();
+                        return result;
+                    }).build())
+                    .addValueResolver(ValueResolver.match(String.class).andMatch("thread")
+                            .resolve((s, n) -> Thread.currentThread().getName()).build())
+                    .build();
+            assertEquals("render", engine.parse("{this.async.thread}").render("foo"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> Engine.builder().timeout(0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> Engine.builder().timeout(500, TimeUnit.MICROSECONDS));
+        Engine engine = Engine.builder().addDefaultValueResolvers().build();
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.parse("{this}").instance().timeout(-1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.parse("{this}").instance().timeout(10, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().useVirtualThreads()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("blocking").resolve((s, n) -> {
+                    try {
+                        // Blocking I/O
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return s.toUpperCase();
+                }).build())
+                .build();
+        assertEquals("FOO", engine.parse("{this.blocking}").render("foo"));
+    }
+
+    @Test
+    public void testTimeout() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().useVirtualThreads()
+                .timeout(50, TimeUnit.MILLISECONDS)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("slow").resolve((s, n) -> {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return s;
+                }).build())
+                .build();
+        IllegalStateException expected = assertThrows(IllegalStateException.class,
+                () -> engine.parse("{this.slow}").render("foo"));
+        assertTrue(expected.getCause() instanceof TimeoutException);
+    }
+
+}
@@ -7,9 +7,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
+import com.github.mkouba.qute.Results.Result;
+
 public class SimpleTest {
 
     @Test
@@ -100,4 +103,72 @@ public class SimpleTest {
                 Engine.builder().build().parse("{! This is my comment}OK").render(null));
     }
 
+    @Test
+    public void testSyncAndAsyncResolution() {
+        AtomicInteger asyncCalls = new AtomicInteger();
+        Engine engine = Engine.builder().addValueResolver(ValueResolvers.thisResolver())
+                .addValueResolver(ValueResolvers.mapResolver())
+                .addValueResolver(ValueResolver.match(String.class)
+                        .resolve(ctx -> ctx.getName().equals("async") ? Result.ASYNC : ctx.getBase().toString().length())
+                        .resolveAsync(ctx -> {
+                            asyncCalls.incrementAndGet();
+                            return CompletableFuture.completedFuture(ctx.getBase().toString().toUpperCase());
+                        }).build())
+                .addNamespaceResolver(NamespaceResolver.builder("async")
+                        .resolveAsync(ctx -> CompletableFuture.completedFuture(ctx.getName())).build())
+                .build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "foo");
+        assertEquals("3 FOO 5 3", engine.parse("{name.length} {name.async} {async:hello.length} {data:name.length}").render(data));
+        assertEquals(1, asyncCalls.get());
+    }
+
+    @Test
+    public void testResolverPriority() {
+        Engine engine = Engine.builder()
+                // The superclass resolver is registered first
+                .addValueResolver(ValueResolver.match(CharSequence.class).andMatch("name").resolve(ctx -> "super").build())
+                .addValueResolver(ValueResolver.match(String.class).andMatch("name").resolve(ctx -> "sub")
+                        .priority(ValueResolver.DEFAULT_PRIORITY + 1).build())
+                // Resolvers with the same priority are used in the order of registration
+                .addValueResolver(ValueResolver.match(CharSequence.class).andMatch("label").resolve(ctx -> "first").build())
+                .addValueResolver(ValueResolver.match(String.class).andMatch("label").resolve(ctx -> "second").build())
+                .build();
+        assertEquals("sub:first", engine.parse("{name}:{label}").render("bar"));
+    }
+
+    @Test
+    public void testMemoization() {
+        AtomicInteger namespaceCalls = new AtomicInteger();
+        AtomicInteger pureCalls = new AtomicInteger();
+        AtomicInteger impureCalls = new AtomicInteger();
+        Engine engine = Engine.builder()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("upper").resolve(ctx -> {
+                    pureCalls.incrementAndGet();
+                    return ctx.getBase().toString().toUpperCase();
+                }).pure().build())
+                .addValueResolver(ValueResolver.match(String.class).andMatch("lower").resolve(ctx -> {
+                    impureCalls.incrementAndGet();
+                    return ctx.getBase().toString().toLowerCase();
+                }).build())
+                .addNamespaceResolver(NamespaceResolver.builder("user").resolve(ctx -> {
+                    namespaceCalls.incrementAndGet();
+                    return ctx.getName();
+                }).pure().build())
+                .build();
+        Template template = engine.parse("{user:foo} {user:foo.upper} {user:foo.upper} {user:foo.lower} {user:foo.lower}");
+        assertEquals("foo FOO FOO foo foo", template.render(null));
+        assertEquals(1, namespaceCalls.get());
+        assertEquals(1, pureCalls.get());
+        assertEquals(2, impureCalls.get());
+        // Memoized per rendering
+        assertEquals("foo FOO FOO foo foo", template.render(null));
+        assertEquals(2, namespaceCalls.get());
+        assertEquals(2, pureCalls.get());
+        // Data expressions are memoized per resolution context
+        assertEquals("BAR BAR bar bar", engine.parse("{upper} {upper} {lower} {lower}").render("Bar"));
+        assertEquals(3, pureCalls.get());
+        assertEquals(6, impureCalls.get());
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testIdenticalInvocationsShareStage() {
+        AtomicInteger invocations = new AtomicInteger();
+        CompletableFuture<Object> remote = new CompletableFuture<>();
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote").resolveAsync(c -> {
+                    invocations.incrementAndGet();
+                    return remote;
+                }).build())
+                .build();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        StringBuilder builder = new StringBuilder();
+        engine.parse("{this.remote}:{this.remote}").instance().data("foo").render(builder::append)
+                .whenComplete((r, t) -> result.complete(builder.toString()));
+        remote.complete("ok");
+        assertEquals("ok:ok", result.join());
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void testCompletedInvocationNotShared() {
+        AtomicInteger invocations = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote")
+                        .resolveAsync(c -> CompletableFuture.completedFuture(invocations.incrementAndGet())).build())
+                .build();
+        assertEquals("1:2", engine.parse("{this.remote}:{this.remote}").render("foo"));
+    }
+
+    @Test
+    public void testDisabled() {
+        AtomicInteger invocations = new AtomicInteger();
+        CompletableFuture<Object> remote = new CompletableFuture<>();
+        Engine engine = Engine.builder().addDefaultValueResolvers().deduplicateAsyncResolvers(false)
+                .addValueResolver(ValueResolver.match(String.class).andMatch("remote").resolveAsync(c -> {
+                    invocations.incrementAndGet();
+                    return remote;
+                }).build())
+                .build();
+        CompletableFuture<Void> result = engine.parse("{this.remote}:{this.remote}").instance().data("foo")
+                .render(s -> {
+                }).toCompletableFuture();
+        remote.complete("ok");
+        result.join();
+        assertEquals(2, invocations.get());
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.qute.TypedResultNodes.Kind;
+
+public class TypedResultTest {
+
+    @Test
+    public void testValueTypes() {
+        Engine engine = Engine.builder().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader(
+                        "{string}|{int}|{long}|{bigLong}|{bool}|{builder}|{other}")))
+                .build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("string", "<a>");
+        data.put("int", -5);
+        data.put("long", 10L);
+        data.put("bigLong", Long.MAX_VALUE);
+        data.put("bool", true);
+        data.put("builder", new StringBuilder("&"));
+        data.put("other", 1.5);
+        assertEquals("&lt;a&gt;|-5|10|" + Long.MAX_VALUE + "|true|&amp;|1.5",
+                engine.getTemplate("foo.html").render(data));
+        // The values change type
+        data.put("int", "int");
+        data.put("bool", 1);
+        assertEquals("&lt;a&gt;|int|10|" + Long.MAX_VALUE + "|1|&amp;|1.5",
+                engine.getTemplate("foo.html").render(data));
+    }
+
+    @Test
+    public void testNullAndNotFound() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", null);
+        assertEquals("[]:NOT_FOUND",
+                Engine.builder().addDefaultValueResolvers().build().parse("[{name}]:{missing}").render(data));
+        assertEquals("[]:?", Engine.builder().addDefaultValueResolvers().notFoundValue("?").build()
+                .parse("[{name}]:{missing}").render(data));
+    }
+
+    @Test
+    public void testCustomEscaperAppliedToNumbers() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addEscaper("txt", v -> "*" + v + "*")
+                .addLocator(id -> Optional.of(new StringReader("{this}")))
+                .build();
+        assertEquals("*42*", engine.getTemplate("foo.txt").render(42));
+        assertEquals("*true*", engine.getTemplate("foo.txt").render(true));
+    }
+
+    @Test
+    public void testCachedNodes() {
+        assertSame(TypedResultNodes.create(Kind.INTEGER, 7, null, false),
+                TypedResultNodes.create(Kind.LONG, 7L, null, false));
+        assertSame(TypedResultNodes.TRUE, TypedResultNodes.create(Kind.BOOLEAN, true, Escapers.HTML, false));
+        assertEquals(Kind.OTHER, Kind.of(RawString.class));
+        assertEquals(Kind.CHAR_SEQUENCE, Kind.of(StringBuilder.class));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.qute.Results.Result;
+
+public class ValueAccessorTest {
+
+    @Test
+    public void testParameterDeclarations() {
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader("{@java.util.Map item}\n{item.name} {!comment!}{data:item.size}")))
+                .build();
+        Template template = engine.getTemplate("item.html");
+        assertEquals(Collections.singletonMap("item", "java.util.Map"), template.getParameterDeclarations());
+        List<Expression> expressions = template.getExpressions();
+        assertEquals(2, expressions.size());
+        assertEquals("item.name", expressions.get(0).toOriginalString());
+        assertEquals("item.html", expressions.get(0).origin.templateId);
+        assertEquals(2, expressions.get(0).origin.line);
+        assertEquals(1, expressions.get(0).origin.lineCharacter);
+        assertEquals("data:item.size", expressions.get(1).toOriginalString());
+
+        assertThrows(IllegalStateException.class, () -> engine.parse("{@java.util.Map}"));
+        assertThrows(IllegalStateException.class, () -> engine.parse("{@java.util.Map item}{@java.util.List item}"));
+    }
+
+    @Test
+    public void testAccessor() {
+        AtomicInteger accessed = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader("{@java.util.Map item}{item.name}:{item.name.length}")))
+                .addValueAccessor("item.html", "item.name", base -> {
+                    accessed.incrementAndGet();
+                    return base instanceof HashMap ? ((Map<?, ?>) base).get("name") : Result.NOT_FOUND;
+                })
+                .addValueResolver(ValueResolver.match(String.class).andMatch("length")
+                        .resolve(ctx -> ((String) ctx.getBase()).length()).build())
+                .build();
+
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", "Foo");
+        Map<String, Object> data = new HashMap<>();
+        data.put("item", item);
+        Template template = engine.getTemplate("item.html");
+        assertEquals("Foo:3", template.render(data));
+        assertEquals(1, accessed.get());
+
+        // Not applicable - fall back to the value resolvers
+        data.put("item", Collections.singletonMap("name", "Bar"));
+        assertEquals("Bar:3", template.render(data));
+        assertEquals(2, accessed.get());
+    }
+
+    @Test
+    public void testNestedExpressions() {
+        AtomicInteger accessed = new AtomicInteger();
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addDefaultValueResolvers()
+                .addLocator(id -> Optional.of(new StringReader(
+                        "{@java.util.Map item}{#if true}{item.name}{/if}:{#each item.values}{item.name}{/each}:{#with item}{item.name}{/with}")))
+                .addValueAccessor("item.html", "item.name", base -> {
+                    accessed.incrementAndGet();
+                    return ((Map<?, ?>) base).get("name");
+                })
+                .build();
+        Template template = engine.getTemplate("item.html");
+        List<Expression> expressions = template.getExpressions();
+        assertEquals(3, expressions.size());
+        assertFalse(expressions.get(0).nested);
+        assertTrue(expressions.get(1).nested);
+        assertTrue(expressions.get(2).nested);
+
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", "Foo");
+        // The iteration element shadows the declared parameter
+        item.put("values", Collections.singletonList(Collections.singletonMap("item", Collections.singletonMap("name", "Bar"))));
+        // The context object shadows the declared parameter
+        item.put("item", Collections.singletonMap("name", "Baz"));
+        Map<String, Object> data = new HashMap<>();
+        data.put("item", item);
+        assertEquals("Foo:Bar:Baz", template.render(data));
+        assertEquals(1, accessed.get());
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.mkouba.qute;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+public class WhitespaceTest {
+
+    @Test
+    public void testRemoveStandaloneLines() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().removeStandaloneLines()
+                .build();
+        Map<String, Object> data = new HashMap<>();
+        data.put("items", Arrays.asList("foo", "bar"));
+        data.put("active", true);
+        assertEquals("<ul>\n"
+                + "  <li>foo</li>\n"
+                + "  <li>bar</li>\n"
+                + "</ul>\n"
+                + "ok\n",
+                engine.parse("{! A comment }\n"
+                        + "<ul>\n"
+                        + "  {#for item in items}\n"
+                        + "  <li>{this}</li>\n"
+                        + "  {/for}\n"
+                        + "</ul>\n"
+                        + "{#if active}  \r\n"
+                        + "ok\n"
+                        + "{:else}\n"
+                        + "nok\n"
+                        + "{/if}").render(data));
+        // Lines with expressions or text are not standalone
+        assertEquals(" true \n ok\n", engine.parse(" {active} \n{#if active} ok{/if}\n").render(data));
+    }
+
+    @Test
+    public void testStandaloneLinesOrigin() {
+        Engine engine = Engine.builder().addDefaultValueResolvers().addDefaultSectionHelpers().removeStandaloneLines()
+                .build();
+        Template template = engine.parse("{#if true}\n{foo}\n{/if}");
+        Expression expression = template.getExpressions().get(0);
+        assertEquals(2, expression.origin.line);
+    }
+
+    @Test
+    public void testCollapseWhitespace() {
+        Map<String, String> templates = new HashMap<>();
+        templates.put("foo.html", "<div>\n    <p>  {this}  </p>\n\n  <pre>  a\n\n b</pre>   <span> </span>\n</div>");
+        templates.put("foo.txt", "a  b");
+        Engine engine = Engine.builder().addDefaultValueResolvers().collapseWhitespace()
+                .addLocator(id -> Optional.ofNullable(templates.get(id)).map(StringReader::new)).build();
+        assertEquals("<div>\n<p> foo </p>\n<pre>  a\n\n b</pre> <span> </span>\n</div>",
+                engine.getTemplate("foo.html").render("foo"));
+        assertEquals("a  b", engine.getTemplate("foo.txt").render(null));
+    }
+
+}
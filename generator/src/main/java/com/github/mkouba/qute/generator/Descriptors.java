@@ -16,6 +16,8 @@ class Descriptors {
 
     static final MethodDescriptor IS_ASSIGNABLE_FROM = MethodDescriptor.ofMethod(Class.class, "isAssignableFrom",
             boolean.class, Class.class);
+    static final MethodDescriptor IS_INSTANCE = MethodDescriptor.ofMethod(Class.class, "isInstance", boolean.class,
+            Object.class);
     static final MethodDescriptor GET_CLASS = MethodDescriptor.ofMethod(Object.class, "getClass", Class.class);
     static final MethodDescriptor COLLECTION_SIZE = MethodDescriptor.ofMethod(Collection.class, "size", int.class);
     static final MethodDescriptor EQUALS = MethodDescriptor.ofMethod(Object.class, "equals", boolean.class,
@@ -27,6 +29,9 @@ class Descriptors {
             CompletionStage.class, String.class);
     static final MethodDescriptor INTEGER_COMPARE = MethodDescriptor.ofMethod(Integer.class, "compare", int.class,
             int.class, int.class);
+    static final MethodDescriptor INTEGER_MIN = MethodDescriptor.ofMethod(Integer.class, "min", int.class,
+            int.class, int.class);
+    static final MethodDescriptor HASH_CODE = MethodDescriptor.ofMethod(Object.class, "hashCode", int.class);
     static final MethodDescriptor LIST_GET = MethodDescriptor.ofMethod(List.class, "get", Object.class, int.class);
     static final MethodDescriptor COMPLETED_FUTURE = MethodDescriptor.ofMethod(CompletableFuture.class,
             "completedFuture", CompletableFuture.class, Object.class);
@@ -43,6 +48,12 @@ class Descriptors {
     static final MethodDescriptor COMPLETABLE_FUTURE_GET = MethodDescriptor.ofMethod(CompletableFuture.class,
             "get",
             Object.class);
+    static final MethodDescriptor COMPLETABLE_FUTURE_GET_NOW = MethodDescriptor.ofMethod(CompletableFuture.class,
+            "getNow", Object.class, Object.class);
+    static final MethodDescriptor COMPLETABLE_FUTURE_IS_DONE = MethodDescriptor.ofMethod(CompletableFuture.class,
+            "isDone", boolean.class);
+    static final MethodDescriptor COMPLETABLE_FUTURE_IS_COMPLETED_EXCEPTIONALLY = MethodDescriptor.ofMethod(
+            CompletableFuture.class, "isCompletedExceptionally", boolean.class);
     static final MethodDescriptor CF_TO_COMPLETABLE_FUTURE = MethodDescriptor.ofMethod(CompletionStage.class,
             "toCompletableFuture",
             CompletableFuture.class);
@@ -54,5 +65,9 @@ class Descriptors {
 
     static final FieldDescriptor RESULT_NOT_FOUND = FieldDescriptor.of(Results.class, "NOT_FOUND",
             CompletionStage.class);
+    static final FieldDescriptor RESULT_NOT_FOUND_VALUE = FieldDescriptor.of(Results.Result.class, "NOT_FOUND",
+            Results.Result.class);
+    static final FieldDescriptor RESULT_ASYNC = FieldDescriptor.of(Results.Result.class, "ASYNC",
+            Results.Result.class);
 
 }
@@ -75,6 +75,7 @@ public class ExtensionMethodGenerator {
 
         implementAppliesTo(valueResolver, method);
         implementResolve(valueResolver, declaringClass, method);
+        implementResolveSync(valueResolver, declaringClass, method);
 
         valueResolver.close();
     }
@@ -149,6 +150,39 @@ public class ExtensionMethodGenerator {
         resolve.returnValue(ret);
     }
 
+    private void implementResolveSync(ClassCreator valueResolver, ClassInfo declaringClass, MethodInfo method) {
+        MethodCreator resolve = valueResolver.getMethodCreator("resolveSync", Object.class, EvalContext.class)
+                .setModifiers(ACC_PUBLIC);
+
+        ResultHandle evalContext = resolve.getMethodParam(0);
+        int paramSize = method.parameters().size();
+        ResultHandle[] args = new ResultHandle[paramSize];
+        args[0] = resolve.invokeInterfaceMethod(Descriptors.GET_BASE, evalContext);
+        if (paramSize > 1) {
+            ResultHandle params = resolve.invokeInterfaceMethod(Descriptors.GET_PARAMS, evalContext);
+            for (int i = 0; i < (paramSize - 1); i++) {
+                // Use the param value only if already evaluated
+                ResultHandle evalResult = resolve.invokeInterfaceMethod(Descriptors.CF_TO_COMPLETABLE_FUTURE,
+                        resolve.invokeInterfaceMethod(Descriptors.EVALUATE, evalContext,
+                                resolve.invokeInterfaceMethod(Descriptors.LIST_GET, params, resolve.load(i))));
+                BytecodeCreator notDone = resolve
+                        .ifNonZero(resolve.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_IS_DONE, evalResult))
+                        .falseBranch();
+                notDone.returnValue(notDone.readStaticField(Descriptors.RESULT_ASYNC));
+                BytecodeCreator failed = resolve
+                        .ifNonZero(resolve.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_IS_COMPLETED_EXCEPTIONALLY,
+                                evalResult))
+                        .trueBranch();
+                failed.returnValue(failed.readStaticField(Descriptors.RESULT_ASYNC));
+                args[i + 1] = resolve.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_GET_NOW, evalResult,
+                        resolve.loadNull());
+            }
+        }
+        resolve.returnValue(resolve.invokeStaticMethod(MethodDescriptor.ofMethod(declaringClass.name().toString(),
+                method.name(), method.returnType().name().toString(),
+                method.parameters().stream().map(p -> p.name().toString()).collect(Collectors.toList()).toArray()), args));
+    }
+
     private void implementAppliesTo(ClassCreator valueResolver, MethodInfo method) {
         MethodCreator appliesTo = valueResolver.getMethodCreator("appliesTo", boolean.class, EvalContext.class)
                 .setModifiers(ACC_PUBLIC);
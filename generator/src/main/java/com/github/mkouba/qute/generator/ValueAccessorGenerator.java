@@ -0,0 +1,211 @@
+package com.github.mkouba.qute.generator;
+
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.generatedNameFromTarget;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.getPropertyName;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.isGetterName;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.isSynthetic;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.packageName;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.simpleName;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.AnnotationTarget.Kind;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.mkouba.qute.ValueAccessor;
+
+import io.quarkus.gizmo.BytecodeCreator;
+import io.quarkus.gizmo.ClassCreator;
+import io.quarkus.gizmo.ClassOutput;
+import io.quarkus.gizmo.FieldDescriptor;
+import io.quarkus.gizmo.MethodCreator;
+import io.quarkus.gizmo.MethodDescriptor;
+import io.quarkus.gizmo.ResultHandle;
+
+/**
+ * Generates a {@link ValueAccessor} for a chain of members, e.g. {@code item.getPrice().getAmount()}.
+ *
+ * @see #findMember(IndexView, ClassInfo, String)
+ */
+public class ValueAccessorGenerator {
+
+    public static final String SUFFIX = "_ValueAccessor";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValueAccessorGenerator.class);
+
+    private static final Map<String, Class<?>[]> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put("boolean", new Class<?>[] { boolean.class, Boolean.class });
+        PRIMITIVES.put("byte", new Class<?>[] { byte.class, Byte.class });
+        PRIMITIVES.put("char", new Class<?>[] { char.class, Character.class });
+        PRIMITIVES.put("short", new Class<?>[] { short.class, Short.class });
+        PRIMITIVES.put("int", new Class<?>[] { int.class, Integer.class });
+        PRIMITIVES.put("long", new Class<?>[] { long.class, Long.class });
+        PRIMITIVES.put("float", new Class<?>[] { float.class, Float.class });
+        PRIMITIVES.put("double", new Class<?>[] { double.class, Double.class });
+    }
+
+    private final IndexView index;
+    private final ClassOutput classOutput;
+    private final Set<String> generatedTypes;
+
+    public ValueAccessorGenerator(IndexView index, ClassOutput classOutput) {
+        this.index = index;
+        this.classOutput = classOutput;
+        this.generatedTypes = new HashSet<>();
+    }
+
+    public Set<String> getGeneratedTypes() {
+        return generatedTypes;
+    }
+
+    /**
+     * The base class and the types of all the members but the last one must be public classes found in the index. The
+     * type of the last member may be also a primitive type.
+     *
+     * @param baseClass
+     * @param members the fields and methods found by {@link #findMember(IndexView, ClassInfo, String)}
+     * @return the name of the generated class
+     */
+    public String generate(ClassInfo baseClass, List<AnnotationTarget> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("No members to access");
+        }
+        StringBuilder baseName = new StringBuilder();
+        if (baseClass.enclosingClass() != null) {
+            baseName.append(simpleName(baseClass.enclosingClass())).append("_");
+        }
+        baseName.append(simpleName(baseClass));
+        for (AnnotationTarget member : members) {
+            baseName.append("_").append(member.kind() == Kind.FIELD ? member.asField().name() : member.asMethod().name());
+        }
+        String generatedName = generatedNameFromTarget(packageName(baseClass.name()), baseName.toString(), SUFFIX);
+        if (!generatedTypes.add(generatedName)) {
+            // Shared by multiple expressions
+            return generatedName.replace('/', '.');
+        }
+        LOGGER.debug("Generating accessor {} for members {}", generatedName, members);
+
+        ClassCreator accessor = ClassCreator.builder().classOutput(classOutput).className(generatedName)
+                .interfaces(ValueAccessor.class).build();
+        MethodCreator access = accessor.getMethodCreator("access", Object.class, Object.class)
+                .setModifiers(ACC_PUBLIC);
+
+        ResultHandle base = access.getMethodParam(0);
+        // Test the base object - also covers null
+        BytecodeCreator notInstance = access
+                .ifNonZero(access.invokeVirtualMethod(Descriptors.IS_INSTANCE,
+                        access.loadClass(baseClass.name().toString()), base))
+                .falseBranch();
+        notInstance.returnValue(notInstance.readStaticField(Descriptors.RESULT_NOT_FOUND_VALUE));
+
+        ClassInfo current = baseClass;
+        ResultHandle value = access.checkCast(base, baseClass.name().toString());
+        for (int i = 0; i < members.size(); i++) {
+            AnnotationTarget member = members.get(i);
+            Type type = memberType(member);
+            if (type.kind() != Type.Kind.CLASS && type.kind() != Type.Kind.PARAMETERIZED_TYPE
+                    && (type.kind() != Type.Kind.PRIMITIVE || i < members.size() - 1)) {
+                throw new IllegalArgumentException("Unsupported member type: " + member);
+            }
+            String owner = current.name().toString();
+            if (member.kind() == Kind.FIELD) {
+                value = access.readInstanceField(FieldDescriptor.of(owner, member.asField().name(), type.name().toString()),
+                        value);
+            } else {
+                MethodDescriptor method = MethodDescriptor.ofMethod(owner, member.asMethod().name(),
+                        type.name().toString());
+                if (Modifier.isInterface(current.flags())) {
+                    value = access.invokeInterfaceMethod(method, value);
+                } else {
+                    value = access.invokeVirtualMethod(method, value);
+                }
+            }
+            if (i < members.size() - 1) {
+                // Null intermediate result - the value of the expression is null
+                BytecodeCreator isNull = access.ifNull(value).trueBranch();
+                isNull.returnValue(isNull.loadNull());
+                current = index.getClassByName(type.name());
+            } else if (type.kind() == Type.Kind.PRIMITIVE) {
+                Class<?>[] primitive = PRIMITIVES.get(type.name().toString());
+                value = access.invokeStaticMethod(
+                        MethodDescriptor.ofMethod(primitive[1], "valueOf", primitive[1], primitive[0]), value);
+            }
+        }
+        access.returnValue(value);
+        accessor.close();
+        return generatedName.replace('/', '.');
+    }
+
+    /**
+     * Find a public instance field or a public instance method with no params that matches the given name. A getter
+     * matches the property name, i.e. {@code getFoo()} matches "foo". Superclasses and interfaces found in the index are
+     * searched as well.
+     *
+     * @param index
+     * @param clazz
+     * @param name
+     * @return the member or {@code null} if no such member exists
+     */
+    public static AnnotationTarget findMember(IndexView index, ClassInfo clazz, String name) {
+        for (FieldInfo field : clazz.fields()) {
+            if (Modifier.isPublic(field.flags()) && !Modifier.isStatic(field.flags()) && field.name().equals(name)) {
+                return field;
+            }
+        }
+        for (MethodInfo method : clazz.methods()) {
+            if (!Modifier.isPublic(method.flags()) || Modifier.isStatic(method.flags()) || isSynthetic(method.flags())
+                    || !method.parameters().isEmpty() || method.returnType().kind() == Type.Kind.VOID
+                    || method.name().equals("<init>")) {
+                continue;
+            }
+            if (method.name().equals(name) || (isGetterName(method.name()) && getPropertyName(method.name()).equals(name))) {
+                return method;
+            }
+        }
+        if (clazz.superName() != null) {
+            ClassInfo superClass = index.getClassByName(clazz.superName());
+            if (superClass != null) {
+                AnnotationTarget member = findMember(index, superClass, name);
+                if (member != null) {
+                    return member;
+                }
+            }
+        }
+        for (DotName interfaceName : clazz.interfaceNames()) {
+            ClassInfo interfaceClass = index.getClassByName(interfaceName);
+            if (interfaceClass != null) {
+                AnnotationTarget member = findMember(index, interfaceClass, name);
+                if (member != null) {
+                    return member;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param member
+     * @return the type of the field or the return type of the method
+     */
+    public static Type memberType(AnnotationTarget member) {
+        return member.kind() == Kind.FIELD ? member.asField().type() : member.asMethod().returnType();
+    }
+
+}
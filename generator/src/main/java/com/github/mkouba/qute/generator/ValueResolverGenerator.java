@@ -3,11 +3,15 @@ package com.github.mkouba.qute.generator;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiConsumer;
@@ -63,6 +67,8 @@ public class ValueResolverGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ValueResolverGenerator.class);
 
+    private static final int HASH_DISPATCH_LEAF_SIZE = 4;
+
     private static final String GET_PREFIX = "get";
     private static final String IS_PREFIX = "is";
 
@@ -89,56 +95,134 @@ public class ValueResolverGenerator {
     }
 
     public void generate(ClassInfo clazz) {
+        generate(clazz, true);
+    }
+
+    /**
+     * 
+     * @param clazz
+     * @param requested {@code false} if the class was discovered as a superclass
+     */
+    private void generate(ClassInfo clazz, boolean requested) {
 
         String clazzName = clazz.name().toString();
         if (analyzedTypes.contains(clazzName)) {
             return;
         }
-        analyzedTypes.add(clazzName);
 
-        // @TemplateData declared on class has precedence
-        AnnotationInstance templateData = clazz.classAnnotation(TEMPLATE_DATA);
-        if (templateData == null) {
-            // Try to find @TemplateData declared on other classes
-            templateData = uncontrolled.get(clazz);
+        // Superclasses are flattened in the resolver of each subclass
+        List<ClassInfo> hierarchy = new ArrayList<>();
+        ClassInfo superClass = clazz;
+        while (superClass != null) {
+            hierarchy.add(superClass);
+            if (superClass.superName() == null || superClass.superName().equals(OBJECT)) {
+                break;
+            }
+            DotName superName = superClass.superName();
+            superClass = index.getClassByName(superName);
+            if (superClass == null) {
+                LOGGER.warn("Skipping super class {} - not found in the index", superName);
+            }
         }
 
-        Predicate<AnnotationTarget> filters = initFilters(templateData);
+        if (requested || !Modifier.isAbstract(clazz.flags())) {
+            analyzedTypes.add(clazzName);
+            LOGGER.debug("Analyzing {}", clazzName);
 
-        LOGGER.debug("Analyzing {}", clazzName);
+            String baseName;
+            if (clazz.enclosingClass() != null) {
+                baseName = simpleName(clazz.enclosingClass()) + "_" + simpleName(clazz);
+            } else {
+                baseName = simpleName(clazz);
+            }
+            String targetPackage = packageName(clazz.name());
+            String generatedName = generatedNameFromTarget(targetPackage, baseName, SUFFIX);
+            generatedTypes.add(generatedName);
+
+            ClassCreator valueResolver = ClassCreator.builder().classOutput(classOutput).className(generatedName)
+                    .interfaces(ValueResolver.class).build();
+
+            Map<String, List<AnnotationTarget>> members = collectMembers(hierarchy);
+            implementGetPriority(valueResolver, hierarchy.size() - 1);
+            implementAppliesTo(valueResolver, clazz);
+            implementResolve(valueResolver, clazz, members, false);
+            implementResolve(valueResolver, clazz, members, true);
 
-        String baseName;
-        if (clazz.enclosingClass() != null) {
-            baseName = simpleName(clazz.enclosingClass()) + "_" + simpleName(clazz);
+            valueResolver.close();
         } else {
-            baseName = simpleName(clazz);
+            // No instances - the members are covered by the resolvers of subclasses
+            LOGGER.debug("Skipping abstract super class {}", clazzName);
         }
-        String targetPackage = packageName(clazz.name());
-        String generatedName = generatedNameFromTarget(targetPackage, baseName, SUFFIX);
-        generatedTypes.add(generatedName);
 
-        ClassCreator valueResolver = ClassCreator.builder().classOutput(classOutput).className(generatedName)
-                .interfaces(ValueResolver.class).build();
-
-        implementAppliesTo(valueResolver, clazz);
-        implementResolve(valueResolver, clazzName, clazz, filters);
+        if (hierarchy.size() > 1) {
+            generate(hierarchy.get(1), false);
+        }
+    }
 
-        valueResolver.close();
+    /**
+     * 
+     * @param hierarchy the class and its superclasses
+     * @return the map of names to matching members - for each class in the hierarchy fields first, then methods in the
+     *         order of declaration; hidden fields and overridden methods are ignored
+     */
+    private Map<String, List<AnnotationTarget>> collectMembers(List<ClassInfo> hierarchy) {
+        Map<String, List<AnnotationTarget>> members = new LinkedHashMap<>();
+        Set<String> fieldNames = new HashSet<>();
+        Set<String> methodSignatures = new HashSet<>();
+        for (ClassInfo clazz : hierarchy) {
+            // @TemplateData declared on class has precedence
+            AnnotationInstance templateData = clazz.classAnnotation(TEMPLATE_DATA);
+            if (templateData == null) {
+                // Try to find @TemplateData declared on other classes
+                templateData = uncontrolled.get(clazz);
+            }
+            Predicate<AnnotationTarget> filter = initFilters(templateData);
 
-        if (!clazz.superName().equals(OBJECT)) {
-            ClassInfo superClass = index.getClassByName(clazz.superClassType().name());
-            if (superClass != null) {
-                generate(superClass);
-            } else {
-                LOGGER.warn("Skipping super class {} - not found in the index", clazz.superClassType());
+            for (FieldInfo field : clazz.fields()) {
+                if (filter.test(field) && fieldNames.add(field.name())) {
+                    LOGGER.debug("Field added: {}", field);
+                    members.computeIfAbsent(field.name(), n -> new ArrayList<>()).add(field);
+                }
+            }
+            for (MethodInfo method : clazz.methods()) {
+                if (filter.test(method) && methodSignatures.add(method.name() + method.parameters())) {
+                    LOGGER.debug("Method added {}", method);
+                    members.computeIfAbsent(method.name(), n -> new ArrayList<>()).add(method);
+                    // Match the property name for getters,  ie. "foo" for "getFoo"
+                    if (method.parameters().size() == 0 && isGetterName(method.name())) {
+                        String propertyName = getPropertyName(method.name());
+                        if (!propertyName.equals(method.name())) {
+                            members.computeIfAbsent(propertyName, n -> new ArrayList<>()).add(method);
+                        }
+                    }
+                }
             }
         }
+        return members;
     }
 
-    private void implementResolve(ClassCreator valueResolver, String clazzName, ClassInfo clazz,
-            Predicate<AnnotationTarget> filter) {
-        MethodCreator resolve = valueResolver.getMethodCreator("resolve", CompletionStage.class, EvalContext.class)
-                .setModifiers(ACC_PUBLIC);
+    /**
+     * A resolver of a subclass must be used before the resolver of its superclass.
+     */
+    private void implementGetPriority(ClassCreator valueResolver, int depth) {
+        if (depth > 0) {
+            MethodCreator getPriority = valueResolver.getMethodCreator("getPriority", int.class)
+                    .setModifiers(ACC_PUBLIC);
+            getPriority.returnValue(getPriority.load(ValueResolver.DEFAULT_PRIORITY + depth));
+        }
+    }
+
+    /**
+     * 
+     * @param sync if set to {@code true} then {@code resolveSync()} is implemented
+     */
+    private void implementResolve(ClassCreator valueResolver, ClassInfo clazz, Map<String, List<AnnotationTarget>> members,
+            boolean sync) {
+        MethodCreator resolve = sync
+                ? valueResolver.getMethodCreator("resolveSync", Object.class, EvalContext.class)
+                : valueResolver.getMethodCreator("resolve", CompletionStage.class, EvalContext.class);
+        resolve.setModifiers(ACC_PUBLIC);
+        FieldDescriptor notFound = sync ? Descriptors.RESULT_NOT_FOUND_VALUE : Descriptors.RESULT_NOT_FOUND;
 
         ResultHandle evalContext = resolve.getMethodParam(0);
         ResultHandle base = resolve.invokeInterfaceMethod(Descriptors.GET_BASE, evalContext);
@@ -147,150 +231,221 @@ public class ValueResolverGenerator {
         ResultHandle params = resolve.invokeInterfaceMethod(Descriptors.GET_PARAMS, evalContext);
         ResultHandle paramsCount = resolve.invokeInterfaceMethod(Descriptors.COLLECTION_SIZE, params);
 
-        // Fields
-        List<FieldInfo> fields = clazz.fields().stream().filter(filter::test).collect(Collectors.toList());
-        if (!fields.isEmpty()) {
-            BytecodeCreator zeroParamsBranch = resolve.ifNonZero(paramsCount).falseBranch();
-            for (FieldInfo field : fields) {
-                LOGGER.debug("Field added: {}", field);
-                // Match field name
-                BytecodeCreator fieldMatch = zeroParamsBranch
-                        .ifNonZero(
-                                zeroParamsBranch.invokeVirtualMethod(Descriptors.EQUALS,
-                                        resolve.load(field.name()), name))
-                        .trueBranch();
-                ResultHandle value;
-                if (Modifier.isStatic(field.flags())) {
-                    value = fieldMatch
-                            .readStaticField(FieldDescriptor.of(clazzName, field.name(), field.type().name().toString()));
-                } else {
-                    value = fieldMatch
-                            .readInstanceField(FieldDescriptor.of(clazzName, field.name(), field.type().name().toString()),
-                                    base);
+        if (!members.isEmpty()) {
+            // Dispatch on the hash code of the name first and only compare the names with the same hash
+            TreeMap<Integer, List<String>> hashes = new TreeMap<>();
+            for (String memberName : members.keySet()) {
+                hashes.computeIfAbsent(memberName.hashCode(), h -> new ArrayList<>()).add(memberName);
+            }
+            ResultHandle hash = resolve.invokeVirtualMethod(Descriptors.HASH_CODE, name);
+            implementHashDispatch(resolve, new ArrayList<>(hashes.entrySet()), hash,
+                    (bytecode, memberName) -> {
+                        BytecodeCreator nameMatch = bytecode
+                                .ifNonZero(bytecode.invokeVirtualMethod(Descriptors.EQUALS, bytecode.load(memberName),
+                                        name))
+                                .trueBranch();
+                        for (AnnotationTarget member : members.get(memberName)) {
+                            if (member.kind() == Kind.FIELD) {
+                                implementFieldRead(nameMatch, member.asField(), base, paramsCount, sync);
+                            } else if (sync) {
+                                implementMethodInvocationSync(nameMatch, clazz, member.asMethod(), base, evalContext,
+                                        params, paramsCount);
+                            } else {
+                                implementMethodInvocation(nameMatch, clazz, member.asMethod(), base, evalContext, params,
+                                        paramsCount);
+                            }
+                        }
+                        // None of the members with the given name is applicable
+                        nameMatch.returnValue(nameMatch.readStaticField(notFound));
+                    });
+        }
+        resolve.returnValue(resolve.readStaticField(notFound));
+    }
+
+    /**
+     * Emits a binary search over the sorted hash codes. Only a few hash codes are compared sequentially in a leaf.
+     */
+    private void implementHashDispatch(BytecodeCreator bytecode, List<Entry<Integer, List<String>>> hashes,
+            ResultHandle hash, BiConsumer<BytecodeCreator, String> nameMatch) {
+        if (hashes.size() <= HASH_DISPATCH_LEAF_SIZE) {
+            for (Entry<Integer, List<String>> entry : hashes) {
+                BytecodeCreator hashMatch = bytecode
+                        .ifNonZero(bytecode.invokeStaticMethod(Descriptors.INTEGER_COMPARE, hash,
+                                bytecode.load(entry.getKey().intValue())))
+                        .falseBranch();
+                for (String memberName : entry.getValue()) {
+                    nameMatch.accept(hashMatch, memberName);
                 }
-                fieldMatch.returnValue(fieldMatch.invokeStaticMethod(Descriptors.COMPLETED_FUTURE, value));
             }
+            return;
+        }
+        int middle = (hashes.size() - 1) / 2;
+        // Integer.compare(Integer.min(hash, pivot), hash) == 0 iff hash <= pivot
+        ResultHandle min = bytecode.invokeStaticMethod(Descriptors.INTEGER_MIN, hash,
+                bytecode.load(hashes.get(middle).getKey().intValue()));
+        BranchResult greater = bytecode.ifNonZero(bytecode.invokeStaticMethod(Descriptors.INTEGER_COMPARE, min, hash));
+        implementHashDispatch(greater.falseBranch(), hashes.subList(0, middle + 1), hash, nameMatch);
+        implementHashDispatch(greater.trueBranch(), hashes.subList(middle + 1, hashes.size()), hash, nameMatch);
+    }
+
+    private void implementFieldRead(BytecodeCreator nameMatch, FieldInfo field, ResultHandle base,
+            ResultHandle paramsCount, boolean sync) {
+        BytecodeCreator fieldMatch = nameMatch.ifNonZero(paramsCount).falseBranch();
+        String clazzName = field.declaringClass().name().toString();
+        ResultHandle value;
+        if (Modifier.isStatic(field.flags())) {
+            value = fieldMatch
+                    .readStaticField(FieldDescriptor.of(clazzName, field.name(), field.type().name().toString()));
+        } else {
+            value = fieldMatch
+                    .readInstanceField(FieldDescriptor.of(clazzName, field.name(), field.type().name().toString()),
+                            base);
         }
+        fieldMatch.returnValue(sync ? value : fieldMatch.invokeStaticMethod(Descriptors.COMPLETED_FUTURE, value));
+    }
 
-        // Methods
-        for (MethodInfo method : clazz.methods().stream().filter(filter::test).collect(Collectors.toList())) {
-            LOGGER.debug("Method added {}", method);
-            List<Type> methodParams = method.parameters();
+    private void implementMethodInvocationSync(BytecodeCreator nameMatch, ClassInfo clazz, MethodInfo method,
+            ResultHandle base, ResultHandle evalContext, ResultHandle params, ResultHandle paramsCount) {
+        List<Type> methodParams = method.parameters();
 
-            BytecodeCreator matchScope = resolve.createScope();
-            // Match name
-            BytecodeCreator notMatched = matchScope.ifNonZero(matchScope.invokeVirtualMethod(Descriptors.EQUALS,
-                    matchScope.load(method.name()),
-                    name))
+        BytecodeCreator matchScope = nameMatch.createScope();
+        // Match number of params
+        matchScope.ifNonZero(matchScope.invokeStaticMethod(Descriptors.INTEGER_COMPARE,
+                matchScope.load(methodParams.size()), paramsCount)).trueBranch().breakScope(matchScope);
+
+        if (!skipMemberType(method.returnType())
+                && hasCompletionStageInTypeClosure(index.getClassByName(method.returnType().name()), index)) {
+            matchScope.returnValue(matchScope.readStaticField(Descriptors.RESULT_ASYNC));
+            return;
+        }
+        ResultHandle[] args = new ResultHandle[methodParams.size()];
+        for (int i = 0; i < methodParams.size(); i++) {
+            // Use the param value only if already evaluated
+            ResultHandle evalResult = matchScope.invokeInterfaceMethod(Descriptors.CF_TO_COMPLETABLE_FUTURE,
+                    matchScope.invokeInterfaceMethod(Descriptors.EVALUATE, evalContext,
+                            matchScope.invokeInterfaceMethod(Descriptors.LIST_GET, params, matchScope.load(i))));
+            BytecodeCreator notDone = matchScope
+                    .ifNonZero(matchScope.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_IS_DONE, evalResult))
                     .falseBranch();
-            // Match the property name for getters,  ie. "foo" for "getFoo"
-            if (methodParams.size() == 0 && isGetterName(method.name())) {
-                notMatched.ifNonZero(notMatched.invokeVirtualMethod(Descriptors.EQUALS,
-                        notMatched.load(getPropertyName(method.name())),
-                        name)).falseBranch().breakScope(matchScope);
-            } else {
-                notMatched.breakScope(matchScope);
+            notDone.returnValue(notDone.readStaticField(Descriptors.RESULT_ASYNC));
+            BytecodeCreator failed = matchScope
+                    .ifNonZero(matchScope.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_IS_COMPLETED_EXCEPTIONALLY,
+                            evalResult))
+                    .trueBranch();
+            failed.returnValue(failed.readStaticField(Descriptors.RESULT_ASYNC));
+            args[i] = matchScope.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_GET_NOW, evalResult,
+                    matchScope.loadNull());
+        }
+        if (Modifier.isInterface(clazz.flags())) {
+            matchScope.returnValue(matchScope.invokeInterfaceMethod(MethodDescriptor.of(method), base, args));
+        } else {
+            matchScope.returnValue(matchScope.invokeVirtualMethod(MethodDescriptor.of(method), base, args));
+        }
+    }
+
+    private void implementMethodInvocation(BytecodeCreator nameMatch, ClassInfo clazz, MethodInfo method,
+            ResultHandle base, ResultHandle evalContext, ResultHandle params, ResultHandle paramsCount) {
+        List<Type> methodParams = method.parameters();
+
+        BytecodeCreator matchScope = nameMatch.createScope();
+        // Match number of params
+        matchScope.ifNonZero(matchScope.invokeStaticMethod(Descriptors.INTEGER_COMPARE,
+                matchScope.load(methodParams.size()), paramsCount)).trueBranch().breakScope(matchScope);
+
+        // Invoke the method
+        ResultHandle ret;
+        boolean hasCompletionStage = !skipMemberType(method.returnType())
+                && hasCompletionStageInTypeClosure(index.getClassByName(method.returnType().name()), index);
+        if (method.parameters().size() > 0) {
+            // We need to evaluate the params 
+            ret = matchScope
+                    .newInstance(MethodDescriptor.ofConstructor(CompletableFuture.class));
+
+            ResultHandle resultsArray = matchScope.newArray(CompletableFuture.class,
+                    matchScope.load(methodParams.size()));
+            for (int i = 0; i < methodParams.size(); i++) {
+                ResultHandle evalResult = matchScope.invokeInterfaceMethod(
+                        Descriptors.EVALUATE, evalContext,
+                        matchScope.invokeInterfaceMethod(Descriptors.LIST_GET, params,
+                                matchScope.load(i)));
+                matchScope.writeArrayValue(resultsArray, i,
+                        matchScope.invokeInterfaceMethod(Descriptors.CF_TO_COMPLETABLE_FUTURE, evalResult));
             }
-            // Match number of params
-            matchScope.ifNonZero(matchScope.invokeStaticMethod(Descriptors.INTEGER_COMPARE,
-                    matchScope.load(methodParams.size()), paramsCount)).trueBranch().breakScope(matchScope);
-
-            // Invoke the method
-            ResultHandle ret;
-            boolean hasCompletionStage = !skipMemberType(method.returnType())
-                    && hasCompletionStageInTypeClosure(index.getClassByName(method.returnType().name()), index);
-            if (method.parameters().size() > 0) {
-                // We need to evaluate the params 
-                ret = matchScope
-                        .newInstance(MethodDescriptor.ofConstructor(CompletableFuture.class));
-
-                ResultHandle resultsArray = matchScope.newArray(CompletableFuture.class,
-                        matchScope.load(methodParams.size()));
-                for (int i = 0; i < methodParams.size(); i++) {
-                    ResultHandle evalResult = matchScope.invokeInterfaceMethod(
-                            Descriptors.EVALUATE, evalContext,
-                            matchScope.invokeInterfaceMethod(Descriptors.LIST_GET, params,
-                                    matchScope.load(i)));
-                    matchScope.writeArrayValue(resultsArray, i,
-                            matchScope.invokeInterfaceMethod(Descriptors.CF_TO_COMPLETABLE_FUTURE, evalResult));
-                }
-                ResultHandle allOf = matchScope.invokeStaticMethod(Descriptors.COMPLETABLE_FUTURE_ALL_OF,
-                        resultsArray);
+            ResultHandle allOf = matchScope.invokeStaticMethod(Descriptors.COMPLETABLE_FUTURE_ALL_OF,
+                    resultsArray);
 
-                FunctionCreator whenCompleteFun = matchScope.createFunction(BiConsumer.class);
-                matchScope.invokeInterfaceMethod(Descriptors.CF_WHEN_COMPLETE, allOf, whenCompleteFun.getInstance());
+            FunctionCreator whenCompleteFun = matchScope.createFunction(BiConsumer.class);
+            matchScope.invokeInterfaceMethod(Descriptors.CF_WHEN_COMPLETE, allOf, whenCompleteFun.getInstance());
 
-                BytecodeCreator whenComplete = whenCompleteFun.getBytecode();
+            BytecodeCreator whenComplete = whenCompleteFun.getBytecode();
 
-                // TODO workaround for https://github.com/quarkusio/gizmo/issues/6
-                AssignableResultHandle whenBase = whenComplete.createVariable(Object.class);
-                whenComplete.assign(whenBase, base);
-                AssignableResultHandle whenRet = whenComplete.createVariable(CompletableFuture.class);
-                whenComplete.assign(whenRet, ret);
-                AssignableResultHandle whenResults = whenComplete.createVariable(CompletableFuture[].class);
-                whenComplete.assign(whenResults, resultsArray);
-
-                BranchResult throwableIsNull = whenComplete.ifNull(whenComplete.getMethodParam(1));
-
-                // complete
-                BytecodeCreator success = throwableIsNull.trueBranch();
-
-                ResultHandle[] paramsHandle = new ResultHandle[methodParams.size()];
-                for (int i = 0; i < methodParams.size(); i++) {
-                    ResultHandle paramResult = success.readArrayValue(whenResults, i);
-                    paramsHandle[i] = success.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_GET, paramResult);
-                }
-                ResultHandle invokeRet;
-                if (Modifier.isInterface(clazz.flags())) {
-                    invokeRet = success.invokeInterfaceMethod(MethodDescriptor.of(method), whenBase, paramsHandle);
-                } else {
-                    invokeRet = success.invokeVirtualMethod(MethodDescriptor.of(method), whenBase, paramsHandle);
-                }
+            // TODO workaround for https://github.com/quarkusio/gizmo/issues/6
+            AssignableResultHandle whenBase = whenComplete.createVariable(Object.class);
+            whenComplete.assign(whenBase, base);
+            AssignableResultHandle whenRet = whenComplete.createVariable(CompletableFuture.class);
+            whenComplete.assign(whenRet, ret);
+            AssignableResultHandle whenResults = whenComplete.createVariable(CompletableFuture[].class);
+            whenComplete.assign(whenResults, resultsArray);
 
-                if (hasCompletionStage) {
-                    FunctionCreator invokeWhenCompleteFun = success.createFunction(BiConsumer.class);
-                    success.invokeInterfaceMethod(Descriptors.CF_WHEN_COMPLETE, invokeRet, invokeWhenCompleteFun.getInstance());
-                    BytecodeCreator invokeWhenComplete = invokeWhenCompleteFun.getBytecode();
-
-                    // TODO workaround for https://github.com/quarkusio/gizmo/issues/6
-                    AssignableResultHandle invokeWhenRet = invokeWhenComplete.createVariable(CompletableFuture.class);
-                    invokeWhenComplete.assign(invokeWhenRet, whenRet);
-
-                    BranchResult invokeThrowableIsNull = invokeWhenComplete.ifNull(invokeWhenComplete.getMethodParam(1));
-                    BytecodeCreator invokeSuccess = invokeThrowableIsNull.trueBranch();
-                    invokeSuccess.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE, invokeWhenRet,
-                            invokeWhenComplete.getMethodParam(0));
-                    BytecodeCreator invokeFailure = invokeThrowableIsNull.falseBranch();
-                    invokeFailure.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE_EXCEPTIONALLY, invokeWhenRet,
-                            invokeWhenComplete.getMethodParam(1));
-                    invokeWhenComplete.returnValue(null);
-                } else {
-                    success.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE, whenRet, invokeRet);
-                }
+            BranchResult throwableIsNull = whenComplete.ifNull(whenComplete.getMethodParam(1));
 
-                // completeExceptionally
-                BytecodeCreator failure = throwableIsNull.falseBranch();
-                failure.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE_EXCEPTIONALLY, whenRet,
-                        whenComplete.getMethodParam(1));
-                whenComplete.returnValue(null);
+            // complete
+            BytecodeCreator success = throwableIsNull.trueBranch();
 
+            ResultHandle[] paramsHandle = new ResultHandle[methodParams.size()];
+            for (int i = 0; i < methodParams.size(); i++) {
+                ResultHandle paramResult = success.readArrayValue(whenResults, i);
+                paramsHandle[i] = success.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_GET, paramResult);
+            }
+            ResultHandle invokeRet;
+            if (Modifier.isInterface(clazz.flags())) {
+                invokeRet = success.invokeInterfaceMethod(MethodDescriptor.of(method), whenBase, paramsHandle);
             } else {
-                // No params
-                ResultHandle invokeRet;
-                if (Modifier.isInterface(clazz.flags())) {
-                    invokeRet = matchScope.invokeInterfaceMethod(MethodDescriptor.of(method), base);
-                } else {
-                    invokeRet = matchScope.invokeVirtualMethod(MethodDescriptor.of(method), base);
-                }
-                if (hasCompletionStage) {
-                    ret = invokeRet;
-                } else {
-                    ret = matchScope.invokeStaticMethod(Descriptors.COMPLETED_FUTURE, invokeRet);
-                }
+                invokeRet = success.invokeVirtualMethod(MethodDescriptor.of(method), whenBase, paramsHandle);
+            }
+
+            if (hasCompletionStage) {
+                FunctionCreator invokeWhenCompleteFun = success.createFunction(BiConsumer.class);
+                success.invokeInterfaceMethod(Descriptors.CF_WHEN_COMPLETE, invokeRet, invokeWhenCompleteFun.getInstance());
+                BytecodeCreator invokeWhenComplete = invokeWhenCompleteFun.getBytecode();
+
+                // TODO workaround for https://github.com/quarkusio/gizmo/issues/6
+                AssignableResultHandle invokeWhenRet = invokeWhenComplete.createVariable(CompletableFuture.class);
+                invokeWhenComplete.assign(invokeWhenRet, whenRet);
+
+                BranchResult invokeThrowableIsNull = invokeWhenComplete.ifNull(invokeWhenComplete.getMethodParam(1));
+                BytecodeCreator invokeSuccess = invokeThrowableIsNull.trueBranch();
+                invokeSuccess.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE, invokeWhenRet,
+                        invokeWhenComplete.getMethodParam(0));
+                BytecodeCreator invokeFailure = invokeThrowableIsNull.falseBranch();
+                invokeFailure.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE_EXCEPTIONALLY, invokeWhenRet,
+                        invokeWhenComplete.getMethodParam(1));
+                invokeWhenComplete.returnValue(null);
+            } else {
+                success.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE, whenRet, invokeRet);
+            }
+
+            // completeExceptionally
+            BytecodeCreator failure = throwableIsNull.falseBranch();
+            failure.invokeVirtualMethod(Descriptors.COMPLETABLE_FUTURE_COMPLETE_EXCEPTIONALLY, whenRet,
+                    whenComplete.getMethodParam(1));
+            whenComplete.returnValue(null);
+
+        } else {
+            // No params
+            ResultHandle invokeRet;
+            if (Modifier.isInterface(clazz.flags())) {
+                invokeRet = matchScope.invokeInterfaceMethod(MethodDescriptor.of(method), base);
+            } else {
+                invokeRet = matchScope.invokeVirtualMethod(MethodDescriptor.of(method), base);
+            }
+            if (hasCompletionStage) {
+                ret = invokeRet;
+            } else {
+                ret = matchScope.invokeStaticMethod(Descriptors.COMPLETED_FUTURE, invokeRet);
             }
-            matchScope.returnValue(ret);
         }
-        resolve.returnValue(resolve.readStaticField(Descriptors.RESULT_NOT_FOUND));
+        matchScope.returnValue(ret);
     }
 
     private void implementAppliesTo(ClassCreator valueResolver, ClassInfo clazz) {
@@ -403,11 +558,11 @@ public class ValueResolverGenerator {
         return (mod & 0x00001000) != 0;
     }
 
-    static boolean isGetterName(String name) {
+    public static boolean isGetterName(String name) {
         return name.startsWith(GET_PREFIX) || name.startsWith(IS_PREFIX);
     }
 
-    static String getPropertyName(String methodName) {
+    public static String getPropertyName(String methodName) {
         if (methodName.startsWith(GET_PREFIX)) {
             return decapitalize(methodName.substring(GET_PREFIX.length(), methodName.length()));
         } else if (methodName.startsWith(IS_PREFIX)) {
@@ -486,7 +641,7 @@ public class ValueResolverGenerator {
         }
     }
 
-    static boolean hasCompletionStageInTypeClosure(ClassInfo classInfo,
+    public static boolean hasCompletionStageInTypeClosure(ClassInfo classInfo,
             IndexView index) {
 
         if (classInfo == null) {
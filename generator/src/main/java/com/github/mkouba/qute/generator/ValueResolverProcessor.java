@@ -0,0 +1,562 @@
+package com.github.mkouba.qute.generator;
+
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.getPropertyName;
+import static com.github.mkouba.qute.generator.ValueResolverGenerator.isGetterName;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import com.github.mkouba.qute.TemplateData;
+import com.github.mkouba.qute.TemplateExtension;
+import com.github.mkouba.qute.ValueResolver;
+
+/**
+ * Generates the source of a value resolver for each type annotated with {@link TemplateData} and for each
+ * {@link TemplateExtension} method. The generated resolvers follow the same rules as the resolvers generated by
+ * {@link ValueResolverGenerator} and {@link ExtensionMethodGenerator}. Moreover, all generated resolvers are registered
+ * in {@code META-INF/services/com.github.mkouba.qute.ValueResolver} so that they can be discovered with
+ * {@link com.github.mkouba.qute.EngineBuilder#addGeneratedResolvers()}.
+ */
+@SupportedAnnotationTypes({ "com.github.mkouba.qute.TemplateData", "com.github.mkouba.qute.TemplateData.Container",
+        "com.github.mkouba.qute.TemplateExtension" })
+public class ValueResolverProcessor extends AbstractProcessor {
+
+    static final String SERVICE_FILE = "META-INF/services/" + ValueResolver.class.getName();
+
+    private static final String INDENT = "    ";
+
+    private final Set<String> analyzedTypes = new HashSet<>();
+    private final Set<String> generatedTypes = new LinkedHashSet<>();
+    private final Map<String, AnnotationMirror> uncontrolled = new HashMap<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        List<TypeElement> targets = new ArrayList<>();
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            if (annotationName.equals(TemplateExtension.class.getName())) {
+                for (ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                    generateExtension(method);
+                }
+                continue;
+            }
+            for (TypeElement annotated : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                for (AnnotationMirror templateData : getTemplateData(annotated)) {
+                    TypeElement target = annotated;
+                    TypeMirror targetValue = (TypeMirror) getValue(templateData, "target");
+                    if (!isType(targetValue, TemplateData.class.getName())) {
+                        target = (TypeElement) ((DeclaredType) targetValue).asElement();
+                        uncontrolled.put(target.getQualifiedName().toString(), templateData);
+                    }
+                    if (!targets.contains(target)) {
+                        targets.add(target);
+                    }
+                }
+            }
+        }
+        for (TypeElement target : targets) {
+            generate(target, true);
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @param clazz
+     * @param requested {@code false} if the class was discovered as a superclass
+     */
+    private void generate(TypeElement clazz, boolean requested) {
+        String clazzName = clazz.getQualifiedName().toString();
+        if (analyzedTypes.contains(clazzName)) {
+            return;
+        }
+
+        // Superclasses are flattened in the resolver of each subclass
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement superClass = clazz;
+        while (superClass != null) {
+            hierarchy.add(superClass);
+            TypeMirror superType = superClass.getSuperclass();
+            if (superType.getKind() != TypeKind.DECLARED || isType(superType, Object.class.getName())) {
+                break;
+            }
+            superClass = (TypeElement) ((DeclaredType) superType).asElement();
+        }
+
+        if (requested || !clazz.getModifiers().contains(Modifier.ABSTRACT)) {
+            analyzedTypes.add(clazzName);
+            if (clazz.getModifiers().contains(Modifier.PRIVATE)) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, "Skipping private class " + clazzName, clazz);
+            } else {
+                String generatedName = generatedName(clazz, ValueResolverGenerator.SUFFIX);
+                String baseType = typeName(clazz.asType());
+                Map<String, List<Element>> members = collectMembers(hierarchy);
+
+                StringBuilder source = new StringBuilder();
+                appendClassStart(source, generatedName);
+                int depth = hierarchy.size() - 1;
+                if (depth > 0) {
+                    // A resolver of a subclass must be used before the resolver of its superclass
+                    source.append(INDENT).append("@Override\n");
+                    source.append(INDENT).append("public int getPriority() {\n");
+                    source.append(INDENT).append(INDENT).append("return ").append(ValueResolver.DEFAULT_PRIORITY + depth)
+                            .append(";\n");
+                    source.append(INDENT).append("}\n\n");
+                }
+                source.append(INDENT).append("@Override\n");
+                source.append(INDENT).append("public boolean appliesTo(EvalContext context) {\n");
+                source.append(INDENT).append(INDENT).append("return context.getBase() instanceof ").append(baseType)
+                        .append(";\n");
+                source.append(INDENT).append("}\n\n");
+                appendResolve(source, baseType, members, false);
+                source.append("\n");
+                appendResolve(source, baseType, members, true);
+                source.append("}\n");
+                writeSource(generatedName, source, clazz);
+            }
+        }
+
+        if (hierarchy.size() > 1) {
+            generate(hierarchy.get(1), false);
+        }
+    }
+
+    private void generateExtension(ExecutableElement method) {
+        // Validate the method first
+        String error = null;
+        if (!method.getModifiers().contains(Modifier.STATIC)) {
+            error = "Template extension method must be static: ";
+        } else if (method.getReturnType().getKind() == TypeKind.VOID) {
+            error = "Template extension method must not return void: ";
+        } else if (method.getParameters().isEmpty()) {
+            error = "Template extension method must declare at least one parameter: ";
+        } else if (method.getParameters().get(0).asType().getKind().isPrimitive()) {
+            error = "The first parameter of a template extension method must not be primitive: ";
+        } else if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            error = "Template extension method must not be private: ";
+        }
+        if (error != null) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, error + method, method);
+            return;
+        }
+
+        TypeElement declaringClass = (TypeElement) method.getEnclosingElement();
+        String name = method.getSimpleName().toString();
+        String generatedName = generatedName(declaringClass, "_" + name + ExtensionMethodGenerator.SUFFIX);
+        String baseType = typeName(method.getParameters().get(0).asType());
+        List<? extends VariableElement> params = method.getParameters().subList(1, method.getParameters().size());
+        Function<List<String>, String> invocation = args -> {
+            List<String> all = new ArrayList<>();
+            all.add("base");
+            all.addAll(args);
+            return typeName(declaringClass.asType()) + "." + name + "(" + String.join(", ", all) + ")";
+        };
+
+        StringBuilder source = new StringBuilder();
+        appendClassStart(source, generatedName);
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public boolean appliesTo(EvalContext context) {\n");
+        source.append(INDENT).append(INDENT).append("return context.getBase() instanceof ").append(baseType)
+                .append(" && \"").append(name).append("\".equals(context.getName()) && context.getParams().size() == ")
+                .append(params.size()).append(";\n");
+        source.append(INDENT).append("}\n\n");
+        for (boolean sync : new boolean[] { false, true }) {
+            appendResolveStart(source, baseType, sync);
+            appendInvocation(source, INDENT + INDENT, invocation, params, method, sync);
+            source.append(INDENT).append("}\n");
+            if (!sync) {
+                source.append("\n");
+            }
+        }
+        source.append("}\n");
+        writeSource(generatedName, source, method);
+    }
+
+    /**
+     *
+     * @param hierarchy the class and its superclasses
+     * @return the map of names to matching members - for each class in the hierarchy fields first, then methods in the
+     *         order of declaration; hidden fields and overridden methods are ignored
+     */
+    private Map<String, List<Element>> collectMembers(List<TypeElement> hierarchy) {
+        Map<String, List<Element>> members = new LinkedHashMap<>();
+        Set<String> fieldNames = new HashSet<>();
+        Set<String> methodSignatures = new HashSet<>();
+        for (TypeElement clazz : hierarchy) {
+            // @TemplateData declared on class has precedence
+            List<AnnotationMirror> templateData = getTemplateData(clazz);
+            Predicate<Element> filter = initFilters(templateData.isEmpty()
+                    ? uncontrolled.get(clazz.getQualifiedName().toString())
+                    : templateData.get(0));
+
+            for (VariableElement field : ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+                String name = field.getSimpleName().toString();
+                if (filter.test(field) && fieldNames.add(name)) {
+                    members.computeIfAbsent(name, n -> new ArrayList<>()).add(field);
+                }
+            }
+            for (ExecutableElement method : ElementFilter.methodsIn(clazz.getEnclosedElements())) {
+                String name = method.getSimpleName().toString();
+                if (filter.test(method) && methodSignatures.add(name + method.getParameters().stream()
+                        .map(p -> typeName(p.asType())).collect(Collectors.toList()))) {
+                    members.computeIfAbsent(name, n -> new ArrayList<>()).add(method);
+                    // Match the property name for getters,  ie. "foo" for "getFoo"
+                    if (method.getParameters().isEmpty() && isGetterName(name)) {
+                        String propertyName = getPropertyName(name);
+                        if (!propertyName.isEmpty() && !propertyName.equals(name)) {
+                            members.computeIfAbsent(propertyName, n -> new ArrayList<>()).add(method);
+                        }
+                    }
+                }
+            }
+        }
+        return members;
+    }
+
+    private Predicate<Element> initFilters(AnnotationMirror templateData) {
+        // Always ignore static and non-public members and void methods
+        Predicate<Element> filter = e -> {
+            if (!e.getModifiers().contains(Modifier.PUBLIC) || e.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            return e.getKind() != ElementKind.METHOD
+                    || ((ExecutableElement) e).getReturnType().getKind() != TypeKind.VOID;
+        };
+        if (templateData != null) {
+            @SuppressWarnings("unchecked")
+            List<? extends AnnotationValue> ignoreValue = (List<? extends AnnotationValue>) getValue(templateData, "ignore");
+            List<Pattern> ignore = ignoreValue.stream().map(v -> Pattern.compile(v.getValue().toString()))
+                    .collect(Collectors.toList());
+            if (!ignore.isEmpty()) {
+                filter = filter.and(e -> !ignore.stream().anyMatch(p -> p.matcher(e.getSimpleName()).matches()));
+            }
+            if ((Boolean) getValue(templateData, "properties")) {
+                filter = filter.and(
+                        e -> e.getKind() != ElementKind.METHOD || ((ExecutableElement) e).getParameters().isEmpty());
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * The names are dispatched with a {@code switch} statement, i.e. the compiler only compares the names with the same
+     * hash code.
+     */
+    private void appendResolve(StringBuilder source, String baseType, Map<String, List<Element>> members, boolean sync) {
+        String indent = INDENT + INDENT;
+        appendResolveStart(source, baseType, sync);
+        if (!members.isEmpty()) {
+            source.append(indent).append("switch (context.getName()) {\n");
+            for (Map.Entry<String, List<Element>> entry : members.entrySet()) {
+                source.append(indent).append(INDENT).append("case \"").append(entry.getKey()).append("\":\n");
+                for (Element member : entry.getValue()) {
+                    String memberIndent = indent + INDENT + INDENT;
+                    String name = member.getSimpleName().toString();
+                    if (member.getKind() == ElementKind.FIELD) {
+                        source.append(memberIndent).append("if (context.getParams().isEmpty()) {\n");
+                        source.append(memberIndent).append(INDENT).append("return ")
+                                .append(sync ? "base." + name : "CompletableFuture.<Object> completedFuture(base." + name + ")")
+                                .append(";\n");
+                        source.append(memberIndent).append("}\n");
+                    } else {
+                        ExecutableElement method = (ExecutableElement) member;
+                        source.append(memberIndent).append("if (context.getParams().size() == ")
+                                .append(method.getParameters().size()).append(") {\n");
+                        appendInvocation(source, memberIndent + INDENT,
+                                args -> "base." + name + "(" + String.join(", ", args) + ")", method.getParameters(),
+                                method, sync);
+                        source.append(memberIndent).append("}\n");
+                    }
+                }
+                // None of the members with the given name is applicable
+                source.append(indent).append(INDENT).append(INDENT).append("break;\n");
+            }
+            source.append(indent).append(INDENT).append("default:\n");
+            source.append(indent).append(INDENT).append(INDENT).append("break;\n");
+            source.append(indent).append("}\n");
+        }
+        source.append(indent).append("return Results.").append(sync ? "Result." : "").append("NOT_FOUND;\n");
+        source.append(INDENT).append("}\n");
+    }
+
+    private void appendResolveStart(StringBuilder source, String baseType, boolean sync) {
+        source.append(INDENT).append("@Override\n");
+        if (sync) {
+            source.append(INDENT).append("public Object resolveSync(EvalContext context) {\n");
+        } else {
+            source.append(INDENT).append("@SuppressWarnings(\"unchecked\")\n");
+            source.append(INDENT).append("public CompletionStage<Object> resolve(EvalContext context) {\n");
+        }
+        source.append(INDENT).append(INDENT).append(baseType).append(" base = (").append(baseType)
+                .append(") context.getBase();\n");
+    }
+
+    private void appendInvocation(StringBuilder source, String indent, Function<List<String>, String> invocation,
+            List<? extends VariableElement> params, ExecutableElement method, boolean sync) {
+        boolean async = isCompletionStage(method.getReturnType());
+        if (sync && async) {
+            source.append(indent).append("return Results.Result.ASYNC;\n");
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        List<String> futures = new ArrayList<>();
+        for (int i = 0; i < params.size(); i++) {
+            source.append(indent).append("CompletableFuture<Object> p").append(i)
+                    .append(" = context.evaluate(context.getParams().get(").append(i).append(")).toCompletableFuture();\n");
+            if (sync) {
+                // Use the param value only if already evaluated
+                source.append(indent).append("if (!p").append(i).append(".isDone() || p").append(i)
+                        .append(".isCompletedExceptionally()) {\n");
+                source.append(indent).append(INDENT).append("return Results.Result.ASYNC;\n");
+                source.append(indent).append("}\n");
+            }
+            futures.add("p" + i);
+            args.add("(" + typeName(params.get(i).asType()) + ") p" + i + (sync ? ".getNow(null)" : ".join()"));
+        }
+        String value;
+        if (sync) {
+            value = invocation.apply(args);
+        } else if (async) {
+            value = "(CompletionStage<Object>) (CompletionStage<?>) " + invocation.apply(args);
+        } else {
+            value = "CompletableFuture.<Object> completedFuture(" + invocation.apply(args) + ")";
+        }
+        boolean checked = method.getThrownTypes().stream().anyMatch(this::isCheckedException);
+        if (sync || params.isEmpty()) {
+            appendReturn(source, indent, value, checked, sync);
+        } else {
+            source.append(indent).append("return CompletableFuture.allOf(").append(String.join(", ", futures))
+                    .append(").<Object> thenCompose(v -> ");
+            if (checked) {
+                source.append("{\n");
+                appendReturn(source, indent + INDENT, value, checked, sync);
+                source.append(indent).append("});\n");
+            } else {
+                source.append(value).append(");\n");
+            }
+        }
+    }
+
+    /**
+     * A checked exception thrown by the invoked method is rethrown wrapped in an {@link IllegalStateException} from
+     * {@code resolveSync()}, and results in a failed future otherwise.
+     */
+    private void appendReturn(StringBuilder source, String indent, String value, boolean checked, boolean sync) {
+        if (!checked) {
+            source.append(indent).append("return ").append(value).append(";\n");
+            return;
+        }
+        source.append(indent).append("try {\n");
+        source.append(indent).append(INDENT).append("return ").append(value).append(";\n");
+        source.append(indent).append("} catch (RuntimeException e) {\n");
+        source.append(indent).append(INDENT).append("throw e;\n");
+        source.append(indent).append("} catch (Exception e) {\n");
+        if (sync) {
+            source.append(indent).append(INDENT).append("throw new IllegalStateException(e);\n");
+        } else {
+            source.append(indent).append(INDENT).append("CompletableFuture<Object> failure = new CompletableFuture<>();\n");
+            source.append(indent).append(INDENT).append("failure.completeExceptionally(e);\n");
+            source.append(indent).append(INDENT).append("return failure;\n");
+        }
+        source.append(indent).append("}\n");
+    }
+
+    private void appendClassStart(StringBuilder source, String generatedName) {
+        int lastDot = generatedName.lastIndexOf('.');
+        if (lastDot != -1) {
+            source.append("package ").append(generatedName.substring(0, lastDot)).append(";\n\n");
+        }
+        source.append("import java.util.concurrent.CompletableFuture;\n");
+        source.append("import java.util.concurrent.CompletionStage;\n\n");
+        source.append("import com.github.mkouba.qute.EvalContext;\n");
+        source.append("import com.github.mkouba.qute.Results;\n");
+        source.append("import com.github.mkouba.qute.ValueResolver;\n\n");
+        source.append("@SuppressWarnings(\"rawtypes\")\n");
+        source.append("public class ").append(generatedName.substring(lastDot + 1)).append(" implements ValueResolver {\n\n");
+    }
+
+    private void writeSource(String generatedName, StringBuilder source, Element originatingElement) {
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(generatedName, originatingElement);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(source.toString());
+            }
+            generatedTypes.add(generatedName);
+            originatingElements.add(originatingElement);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR,
+                    "Unable to generate " + generatedName + ": " + e.getMessage(), originatingElement);
+        }
+    }
+
+    /**
+     * An incremental build only processes the changed sources, so the resolvers registered by a previous build are kept
+     * as long as the generated class still exists.
+     */
+    private void writeServiceFile() {
+        if (generatedTypes.isEmpty()) {
+            return;
+        }
+        Set<String> registered = new LinkedHashSet<>(generatedTypes);
+        for (String existing : readServiceFile()) {
+            if (!registered.contains(existing) && classFileExists(existing)) {
+                registered.add(existing);
+            }
+        }
+        try {
+            FileObject serviceFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE, originatingElements.toArray(new Element[0]));
+            try (Writer writer = serviceFile.openWriter()) {
+                for (String generatedType : registered) {
+                    writer.write(generatedType);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Unable to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> readServiceFile() {
+        List<String> lines = new ArrayList<>();
+        try {
+            FileObject serviceFile = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(serviceFile.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        lines.add(line);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No service file written by a previous build
+        }
+        return lines;
+    }
+
+    private boolean classFileExists(String className) {
+        int lastDot = className.lastIndexOf('.');
+        try {
+            FileObject classFile = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT,
+                    lastDot != -1 ? className.substring(0, lastDot) : "", className.substring(lastDot + 1) + ".class");
+            return classFile.getLastModified() > 0;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String generatedName(TypeElement clazz, String suffix) {
+        String baseName;
+        if (clazz.getNestingKind() == NestingKind.MEMBER) {
+            baseName = clazz.getEnclosingElement().getSimpleName() + "_" + clazz.getSimpleName();
+        } else {
+            baseName = clazz.getSimpleName().toString();
+        }
+        String targetPackage = processingEnv.getElementUtils().getPackageOf(clazz).getQualifiedName().toString();
+        if (targetPackage.isEmpty()) {
+            return baseName + suffix;
+        } else if (targetPackage.startsWith("java")) {
+            return "com.github.mkouba.qute." + baseName + suffix;
+        }
+        return targetPackage + "." + baseName + suffix;
+    }
+
+    private List<AnnotationMirror> getTemplateData(TypeElement element) {
+        List<AnnotationMirror> templateData = new ArrayList<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (isType(annotation.getAnnotationType(), TemplateData.class.getName())) {
+                templateData.add(annotation);
+            } else if (isType(annotation.getAnnotationType(), TemplateData.Container.class.getCanonicalName())) {
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) getValue(annotation, "value");
+                for (AnnotationValue value : values) {
+                    templateData.add((AnnotationMirror) value.getValue());
+                }
+            }
+        }
+        return templateData;
+    }
+
+    private Object getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils()
+                .getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("No value found for " + name + " in " + annotation);
+    }
+
+    private boolean isCompletionStage(TypeMirror type) {
+        TypeMirror completionStage = processingEnv.getTypeUtils().erasure(
+                processingEnv.getElementUtils().getTypeElement(CompletionStage.class.getName()).asType());
+        return type.getKind() == TypeKind.DECLARED
+                && processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), completionStage);
+    }
+
+    private boolean isCheckedException(TypeMirror type) {
+        TypeMirror runtimeException = processingEnv.getElementUtils().getTypeElement(RuntimeException.class.getName())
+                .asType();
+        TypeMirror error = processingEnv.getElementUtils().getTypeElement(Error.class.getName()).asType();
+        return !processingEnv.getTypeUtils().isAssignable(type, runtimeException)
+                && !processingEnv.getTypeUtils().isAssignable(type, error);
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private String typeName(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+}
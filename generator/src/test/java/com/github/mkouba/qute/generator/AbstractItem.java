@@ -0,0 +1,13 @@
+package com.github.mkouba.qute.generator;
+
+public abstract class AbstractItem {
+
+    public String getName() {
+        return "item";
+    }
+
+    public String getCategory() {
+        return "weapon";
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.mkouba.qute.generator;
+
+import com.github.mkouba.qute.TemplateData;
+
+/**
+ * Enough members to split the hash dispatch into several levels.
+ */
+@TemplateData
+public class ManyMembersItem {
+
+    public String alpha = "alpha";
+
+    public String bravo = "bravo";
+
+    public String charlie = "charlie";
+
+    public String delta = "delta";
+
+    public String echo = "echo";
+
+    public String foxtrot = "foxtrot";
+
+    public String golf = "golf";
+
+    public String hotel = "hotel";
+
+    public String india = "india";
+
+    public String juliet = "juliet";
+
+    public String kilo = "kilo";
+
+    public String lima = "lima";
+
+    // "Ab" and "BC" have the same hash code
+    public String Ab = "Ab";
+
+}
@@ -7,6 +7,11 @@ public class MyItem {
 
     public String id = "foo";
 
+    // "Aa" and "BB" have the same hash code
+    public String Aa = "aa";
+
+    public String BB = "bb";
+
     public String getBar(int limit) {
         return "bar";
     }
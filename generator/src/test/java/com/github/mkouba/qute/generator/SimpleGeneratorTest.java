@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -22,6 +24,7 @@ import com.github.mkouba.qute.EvalContext;
 import com.github.mkouba.qute.Expression;
 import com.github.mkouba.qute.IfSectionHelper;
 import com.github.mkouba.qute.ImmutableList;
+import com.github.mkouba.qute.Results.Result;
 import com.github.mkouba.qute.ValueResolver;
 import com.github.mkouba.qute.ValueResolvers;
 
@@ -30,12 +33,13 @@ public class SimpleGeneratorTest {
     @BeforeAll
     public static void init() throws IOException {
         TestClassOutput classOutput = new TestClassOutput();
-        Index index = index(MyService.class, PublicMyService.class, MyItem.class, String.class, CompletionStage.class,
-                List.class);
+        Index index = index(MyService.class, PublicMyService.class, MyItem.class, ManyMembersItem.class, String.class,
+                CompletionStage.class, List.class);
         ValueResolverGenerator generator = new ValueResolverGenerator(index, classOutput, Collections.emptyMap());
         generator.generate(index.getClassByName(DotName.createSimple(MyService.class.getName())));
         generator.generate(index.getClassByName(DotName.createSimple(PublicMyService.class.getName())));
         generator.generate(index.getClassByName(DotName.createSimple(MyItem.class.getName())));
+        generator.generate(index.getClassByName(DotName.createSimple(ManyMembersItem.class.getName())));
         generator.generate(index.getClassByName(DotName.createSimple(String.class.getName())));
         generator.generate(index.getClassByName(DotName.createSimple(List.class.getName())));
     }
@@ -63,6 +67,19 @@ public class SimpleGeneratorTest {
         assertEquals("NOT_FOUND",
                 resolver.resolve(new TestEvalContext(new MyService(), "surname", Collections.emptyList(), null))
                         .toCompletableFuture().get(1, TimeUnit.SECONDS).toString());
+        // Sync resolution
+        assertEquals("Foo",
+                resolver.resolveSync(new TestEvalContext(new MyService(), "name", Collections.emptyList(), null)));
+        assertEquals(Boolean.TRUE,
+                resolver.resolveSync(new TestEvalContext(new MyService(), "active", Collections.emptyList(), null)));
+        assertEquals("[0, 1]",
+                resolver.resolveSync(new TestEvalContext(new MyService(), "getList", Collections.singletonList("2"),
+                        e -> CompletableFuture.completedFuture(Integer.valueOf(2)))).toString());
+        assertEquals(Result.ASYNC,
+                resolver.resolveSync(new TestEvalContext(new MyService(), "getList", Collections.singletonList("2"),
+                        e -> new CompletableFuture<>())));
+        assertEquals(Result.NOT_FOUND,
+                resolver.resolveSync(new TestEvalContext(new MyService(), "surname", Collections.emptyList(), null)));
     }
 
     @Test
@@ -79,6 +96,58 @@ public class SimpleGeneratorTest {
         assertEquals("OK", engine.parse("{#if this.getList(5).size == 5}OK{/if}").render(new MyService()));
         assertEquals("Martin NOT_FOUND", engine.parse("{name} {surname}").render(new PublicMyService()));
         assertEquals("foo NOT_FOUND", engine.parse("{id} {bar}").render(new MyItem()));
+        assertEquals("aa bb NOT_FOUND", engine.parse("{Aa} {BB} {C#}").render(new MyItem()));
+    }
+
+    @Test
+    public void testHashDispatch() throws Exception {
+        ValueResolver resolver = newResolver("com.github.mkouba.qute.generator.ManyMembersItem_ValueResolver");
+        ManyMembersItem item = new ManyMembersItem();
+        List<String> names = new ArrayList<>();
+        for (Field field : ManyMembersItem.class.getFields()) {
+            names.add(field.getName());
+        }
+        // Every member is found on both sides of each split
+        for (String name : names) {
+            assertEquals(name, resolver.resolveSync(new TestEvalContext(item, name, Collections.emptyList(), null)));
+            assertEquals(name, resolver.resolve(new TestEvalContext(item, name, Collections.emptyList(), null))
+                    .toCompletableFuture().get(1, TimeUnit.SECONDS));
+        }
+        int min = names.stream().mapToInt(String::hashCode).min().getAsInt();
+        int max = names.stream().mapToInt(String::hashCode).max().getAsInt();
+        List<String> absent = new ArrayList<>();
+        // Same hash code as "Ab"
+        absent.add("BC");
+        // Hash codes below, above and in between the member hash codes
+        absent.add("");
+        absent.add("zzzzzzzzzzzz");
+        for (int i = 0; absent.size() < 10; i++) {
+            String name = "x" + i;
+            int hash = name.hashCode();
+            if (hash > min && hash < max && !names.contains(name)) {
+                absent.add(name);
+            }
+        }
+        for (String name : absent) {
+            assertEquals(Result.NOT_FOUND,
+                    resolver.resolveSync(new TestEvalContext(item, name, Collections.emptyList(), null)), name);
+            assertEquals(Result.NOT_FOUND, resolver.resolve(new TestEvalContext(item, name, Collections.emptyList(), null))
+                    .toCompletableFuture().get(1, TimeUnit.SECONDS), name);
+        }
+    }
+
+    @Test
+    public void testHierarchy() throws Exception {
+        Index index = index(SwordItem.class, AbstractItem.class);
+        ValueResolverGenerator generator = new ValueResolverGenerator(index, new TestClassOutput(), Collections.emptyMap());
+        generator.generate(index.getClassByName(DotName.createSimple(SwordItem.class.getName())));
+        // No resolver for the abstract superclass
+        assertEquals(Collections.singleton("com/github/mkouba/qute/generator/SwordItem_ValueResolver"),
+                generator.getGeneratedTypes());
+        ValueResolver resolver = newResolver("com.github.mkouba.qute.generator.SwordItem_ValueResolver");
+        assertEquals(ValueResolver.DEFAULT_PRIORITY + 1, resolver.getPriority());
+        Engine engine = Engine.builder().addValueResolver(resolver).build();
+        assertEquals("sword weapon", engine.parse("{name} {category}").render(new SwordItem()));
     }
 
     private ValueResolver newResolver(String className)
@@ -0,0 +1,13 @@
+package com.github.mkouba.qute.generator;
+
+import com.github.mkouba.qute.TemplateData;
+
+@TemplateData
+public class SwordItem extends AbstractItem {
+
+    @Override
+    public String getName() {
+        return "sword";
+    }
+
+}
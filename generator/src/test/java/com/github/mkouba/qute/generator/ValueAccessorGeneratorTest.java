@@ -0,0 +1,72 @@
+package com.github.mkouba.qute.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.qute.Results.Result;
+import com.github.mkouba.qute.ValueAccessor;
+
+public class ValueAccessorGeneratorTest {
+
+    @Test
+    public void testGenerator() throws Exception {
+        Index index = index(MyService.class, MyItem.class, String.class);
+        ClassInfo myService = index.getClassByName(DotName.createSimple(MyService.class.getName()));
+        ClassInfo myItem = index.getClassByName(DotName.createSimple(MyItem.class.getName()));
+        ClassInfo string = index.getClassByName(DotName.createSimple(String.class.getName()));
+
+        AnnotationTarget name = ValueAccessorGenerator.findMember(index, myService, "name");
+        assertEquals("getName", name.asMethod().name());
+        AnnotationTarget empty = ValueAccessorGenerator.findMember(index, string, "empty");
+        assertEquals("isEmpty", empty.asMethod().name());
+        AnnotationTarget id = ValueAccessorGenerator.findMember(index, myItem, "id");
+        assertEquals("id", id.asField().name());
+        // Non-public field
+        assertNull(ValueAccessorGenerator.findMember(index, myService, "age"));
+        // Method with params
+        assertNull(ValueAccessorGenerator.findMember(index, myItem, "bar"));
+
+        ValueAccessorGenerator generator = new ValueAccessorGenerator(index, new TestClassOutput());
+        ValueAccessor nameEmpty = newAccessor(generator.generate(myService, Arrays.asList(name, empty)));
+        assertEquals(Boolean.FALSE, nameEmpty.access(new MyService()));
+        assertEquals(Result.NOT_FOUND, nameEmpty.access(new MyItem()));
+        assertEquals(Result.NOT_FOUND, nameEmpty.access(null));
+        ValueAccessor itemId = newAccessor(generator.generate(myItem, Collections.singletonList(id)));
+        assertEquals("foo", itemId.access(new MyItem()));
+        // Null intermediate result
+        ValueAccessor itemIdEmpty = newAccessor(generator.generate(myItem, Arrays.asList(id, empty)));
+        MyItem nullId = new MyItem();
+        nullId.id = null;
+        assertNull(itemIdEmpty.access(nullId));
+        assertEquals(3, generator.getGeneratedTypes().size());
+    }
+
+    private ValueAccessor newAccessor(String className)
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+        return (ValueAccessor) ValueAccessorGeneratorTest.class.getClassLoader().loadClass(className).newInstance();
+    }
+
+    private static Index index(Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            try (InputStream stream = ValueAccessorGeneratorTest.class.getClassLoader()
+                    .getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+                indexer.index(stream);
+            }
+        }
+        return indexer.complete();
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.github.mkouba.qute.generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.qute.Engine;
+import com.github.mkouba.qute.ValueResolver;
+import com.github.mkouba.qute.generator.SimpleGeneratorTest.TestEvalContext;
+
+public class ValueResolverProcessorTest {
+
+    @Test
+    public void testProcessor() throws Exception {
+        Path output = Files.createTempDirectory("qute-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(output, diagnostics,
+                source("org.acme.Item",
+                        "package org.acme;",
+                        "@com.github.mkouba.qute.TemplateData(ignore = \"secret\")",
+                        "public class Item extends BaseItem {",
+                        "  public final String name;",
+                        "  public final String secret = \"foo\";",
+                        "  public Item(String name) { this.name = name; }",
+                        "  public int getPrice() { return 10; }",
+                        "  public int add(int value, String suffix) { return value + suffix.length(); }",
+                        "  public java.util.concurrent.CompletionStage<String> getAsync() {",
+                        "    return java.util.concurrent.CompletableFuture.completedFuture(\"async\");",
+                        "  }",
+                        "}"),
+                source("org.acme.BaseItem",
+                        "package org.acme;",
+                        "public abstract class BaseItem {",
+                        "  public String getLabel() { return \"label\"; }",
+                        "  public boolean isActive() { return true; }",
+                        "}"),
+                source("org.acme.ItemExtensions",
+                        "package org.acme;",
+                        "public class ItemExtensions {",
+                        "  @com.github.mkouba.qute.TemplateExtension",
+                        "  static String upper(Item item, String prefix) { return prefix + item.name.toUpperCase(); }",
+                        "}")),
+                () -> diagnostics.getDiagnostics().toString());
+
+        List<String> registered = Files.readAllLines(output.resolve(ValueResolverProcessor.SERVICE_FILE));
+        assertEquals(2, registered.size());
+        assertTrue(registered.containsAll(
+                Arrays.asList("org.acme.Item_ValueResolver", "org.acme.ItemExtensions_upper_Extension_ValueResolver")));
+        // Abstract superclass is not generated
+        assertFalse(Files.exists(output.resolve("org/acme/BaseItem_ValueResolver.class")));
+
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader cl = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                ValueResolverProcessorTest.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(cl);
+            Engine engine = Engine.builder().addDefaultValueResolvers().addGeneratedResolvers().build();
+            Object item = cl.loadClass("org.acme.Item").getConstructor(String.class).newInstance("sword");
+            assertEquals("sword:10:15:label:true:async:NOT_FOUND:-SWORD",
+                    engine.parse("{name}:{price}:{add(10,'hello')}:{label}:{active}:{async}:{secret}:{upper('-')}")
+                            .render(item));
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+    }
+
+    @Test
+    public void testIncrementalBuild() throws IOException {
+        Path output = Files.createTempDirectory("qute-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(output, diagnostics,
+                source("org.acme.Foo",
+                        "package org.acme;",
+                        "@com.github.mkouba.qute.TemplateData",
+                        "public class Foo {",
+                        "  public String name;",
+                        "}")),
+                () -> diagnostics.getDiagnostics().toString());
+        Path serviceFile = output.resolve(ValueResolverProcessor.SERVICE_FILE);
+        // The generated class of a removed type
+        Files.write(serviceFile, Arrays.asList("org.acme.Foo_ValueResolver", "org.acme.Removed_ValueResolver"));
+        // Only the changed sources are compiled
+        assertTrue(compile(output, diagnostics,
+                source("org.acme.Bar",
+                        "package org.acme;",
+                        "@com.github.mkouba.qute.TemplateData",
+                        "public class Bar {",
+                        "  public String name;",
+                        "}")),
+                () -> diagnostics.getDiagnostics().toString());
+        assertEquals(Arrays.asList("org.acme.Bar_ValueResolver", "org.acme.Foo_ValueResolver"),
+                Files.readAllLines(serviceFile));
+    }
+
+    @Test
+    public void testCheckedExceptions() throws Exception {
+        Path output = Files.createTempDirectory("qute-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(output, diagnostics,
+                source("org.acme.Foo",
+                        "package org.acme;",
+                        "@com.github.mkouba.qute.TemplateData",
+                        "public class Foo {",
+                        "  public String getName() throws java.io.IOException { return \"foo\"; }",
+                        "  public String greet(String name) throws Exception { return \"hello \" + name; }",
+                        "  public String getBroken() throws java.io.IOException { throw new java.io.IOException(\"broken\"); }",
+                        "}"),
+                source("org.acme.FooExtensions",
+                        "package org.acme;",
+                        "public class FooExtensions {",
+                        "  @com.github.mkouba.qute.TemplateExtension",
+                        "  static String upper(Foo foo, String suffix) throws java.io.IOException {",
+                        "    return foo.getName().toUpperCase() + suffix;",
+                        "  }",
+                        "}")),
+                () -> diagnostics.getDiagnostics().toString());
+
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader cl = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                ValueResolverProcessorTest.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(cl);
+            Engine engine = Engine.builder().addDefaultValueResolvers().addGeneratedResolvers().build();
+            Object foo = cl.loadClass("org.acme.Foo").newInstance();
+            assertEquals("foo:hello x:FOO!", engine.parse("{name}:{greet('x')}:{upper('!')}").render(foo));
+
+            ValueResolver resolver = (ValueResolver) cl.loadClass("org.acme.Foo_ValueResolver").newInstance();
+            IllegalStateException sync = assertThrows(IllegalStateException.class,
+                    () -> resolver.resolveSync(new TestEvalContext(foo, "broken", Collections.emptyList(), null)));
+            assertEquals("broken", sync.getCause().getMessage());
+            CompletableFuture<Object> async = resolver
+                    .resolve(new TestEvalContext(foo, "broken", Collections.emptyList(), null)).toCompletableFuture();
+            assertTrue(async.isCompletedExceptionally());
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> async.get());
+            assertTrue(failure.getCause() instanceof IOException);
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+    }
+
+    @Test
+    public void testInvalidExtensionMethod() throws IOException {
+        Path output = Files.createTempDirectory("qute-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(output, diagnostics,
+                source("org.acme.Extensions",
+                        "package org.acme;",
+                        "public class Extensions {",
+                        "  @com.github.mkouba.qute.TemplateExtension",
+                        "  String foo(String val) { return val; }",
+                        "}")));
+        assertTrue(diagnostics.getDiagnostics().stream()
+                .anyMatch(d -> d.getMessage(null).startsWith("Template extension method must be static")));
+    }
+
+    private boolean compile(Path output, DiagnosticCollector<JavaFileObject> diagnostics, JavaFileObject... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classpath = Arrays.asList(Engine.class, ValueResolverProcessor.class).stream()
+                .map(c -> c.getProtectionDomain().getCodeSource().getLocation().getPath())
+                .collect(Collectors.joining(File.pathSeparator));
+        CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-d", output.toString(), "-classpath", classpath), null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new ValueResolverProcessor()));
+        return task.call();
+    }
+
+    private JavaFileObject source(String className, String... lines) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return String.join("\n", lines);
+            }
+        };
+    }
+
+}
@@ -2,11 +2,21 @@ package com.github.mkouba.qute.quarkus.deployment;
 
 import static io.quarkus.deployment.annotations.ExecutionTime.RUNTIME_INIT;
 
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -18,12 +28,16 @@ import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.IndexView;
 import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.mkouba.qute.Engine;
+import com.github.mkouba.qute.Expression;
 import com.github.mkouba.qute.Template;
 import com.github.mkouba.qute.TemplateExtension;
 import com.github.mkouba.qute.generator.ExtensionMethodGenerator;
+import com.github.mkouba.qute.generator.ValueAccessorGenerator;
 import com.github.mkouba.qute.generator.ValueResolverGenerator;
 import com.github.mkouba.qute.quarkus.TemplatePath;
 import com.github.mkouba.qute.quarkus.runtime.QuteTemplate;
@@ -48,6 +62,9 @@ public class QuteProcessor {
 
     static final DotName TEMPLATE_PATH = DotName.createSimple(TemplatePath.class.getName());
     static final DotName TEMPLATE_EXTENSION = DotName.createSimple(TemplateExtension.class.getName());
+    static final DotName COMPLETION_STAGE = DotName.createSimple(CompletionStage.class.getName());
+    static final DotName COMPLETABLE_FUTURE = DotName.createSimple(CompletableFuture.class.getName());
+    static final DotName OBJECT = DotName.createSimple(Object.class.getName());
 
     @BuildStep
     void generateValueResolvers(BuildProducer<GeneratedClassBuildItem> generatedClass,
@@ -104,8 +121,11 @@ public class QuteProcessor {
             generator.generate(data);
         }
         // @Named beans
-        for (AnnotationInstance templateData : index.getAnnotations(DotNames.NAMED)) {
-            generator.generate(templateData.target().asClass());
+        for (AnnotationInstance named : index.getAnnotations(DotNames.NAMED)) {
+            // Producer methods and fields, and injection points are ignored
+            if (named.target().kind() == Kind.CLASS) {
+                generator.generate(named.target().asClass());
+            }
         }
 
         Set<String> generateTypes = new HashSet<>();
@@ -174,15 +194,227 @@ public class QuteProcessor {
         }
     }
 
+    @BuildStep
+    void validateExpressions(BeanArchiveIndexBuildItem beanArchiveIndex,
+            ApplicationArchivesBuildItem applicationArchivesBuildItem, List<TemplatePathBuildItem> templatePaths,
+            BuildProducer<GeneratedClassBuildItem> generatedClass, BuildProducer<ValueAccessorBuildItem> valueAccessors) {
+
+        IndexView index = beanArchiveIndex.getIndex();
+        IndexView rootIndex = applicationArchivesBuildItem.getRootArchive().getIndex();
+        Path root = applicationArchivesBuildItem.getRootArchive().getArchiveRoot();
+        // Note that custom section helpers are not available at build time
+        Engine engine = Engine.builder().addDefaultSectionHelpers().addLocator(path -> {
+            // Try {path} and {path}.html
+            Path templatePath = root.resolve("META-INF/resources/" + path);
+            if (!Files.isRegularFile(templatePath)) {
+                templatePath = root.resolve("META-INF/resources/" + path + ".html");
+            }
+            if (Files.isRegularFile(templatePath)) {
+                try {
+                    return Optional.of(Files.newBufferedReader(templatePath, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read the template: " + templatePath, e);
+                }
+            }
+            return Optional.empty();
+        }).build();
+
+        Map<String, List<MethodInfo>> extensionMethods = new HashMap<>();
+        for (AnnotationInstance templateExtension : index.getAnnotations(TEMPLATE_EXTENSION)) {
+            if (templateExtension.target().kind() == Kind.METHOD) {
+                MethodInfo method = templateExtension.target().asMethod();
+                extensionMethods.computeIfAbsent(method.name(), name -> new ArrayList<>()).add(method);
+            }
+        }
+
+        AtomicBoolean appClass = new AtomicBoolean();
+        ClassOutput classOutput = new ClassOutput() {
+            @Override
+            public void write(String name, byte[] data) {
+                LOGGER.debug("Writing {} [appClass={}]", name, appClass.get());
+                generatedClass.produce(new GeneratedClassBuildItem(appClass.get(), name, data));
+            }
+        };
+        ValueAccessorGenerator generator = new ValueAccessorGenerator(index, classOutput);
+        List<String> errors = new ArrayList<>();
+
+        for (TemplatePathBuildItem templatePath : templatePaths) {
+            Template template;
+            try {
+                template = engine.getTemplate(templatePath.getPath());
+            } catch (IllegalStateException e) {
+                LOGGER.warn("Unable to validate expressions of template {}: {}", templatePath.getPath(), e.getMessage());
+                continue;
+            }
+            if (template == null || template.getParameterDeclarations().isEmpty()) {
+                continue;
+            }
+            for (Expression expression : template.getExpressions()) {
+                if (expression.namespace != null || expression.parts.size() < 2 || expression.nested) {
+                    // Expressions nested in a loop, etc. may not be resolved against the declared parameter
+                    continue;
+                }
+                String declaredType = template.getParameterDeclarations().get(expression.parts.get(0));
+                if (declaredType == null) {
+                    continue;
+                }
+                ClassInfo declaredClass = index.getClassByName(DotName.createSimple(declaredType));
+                if (declaredClass == null) {
+                    LOGGER.warn("Unable to validate expression {{}} [{}]: type {} not found in the index",
+                            expression.toOriginalString(), expression.origin, declaredType);
+                    continue;
+                }
+                ClassInfo clazz = declaredClass;
+                boolean bindable = Modifier.isPublic(clazz.flags());
+                List<AnnotationTarget> members = new ArrayList<>();
+                for (String part : expression.parts.subList(1, expression.parts.size())) {
+                    if (clazz == null || part.indexOf('(') != -1) {
+                        // Type not found in the index or virtual method with params - stop the validation
+                        bindable = false;
+                        break;
+                    }
+                    AnnotationTarget member = ValueAccessorGenerator.findMember(index, clazz, part);
+                    if (member == null) {
+                        if (!hasExtensionMethod(index, extensionMethods.get(part), clazz)) {
+                            errors.add(String.format("{%s}: property \"%s\" not found on class %s [%s]",
+                                    expression.toOriginalString(), part, clazz.name(), expression.origin));
+                        }
+                        bindable = false;
+                        break;
+                    }
+                    members.add(member);
+                    Type type = ValueAccessorGenerator.memberType(member);
+                    if (type.kind() == Type.Kind.CLASS || type.kind() == Type.Kind.PARAMETERIZED_TYPE) {
+                        clazz = index.getClassByName(type.name());
+                        if (type.name().equals(COMPLETION_STAGE) || type.name().equals(COMPLETABLE_FUTURE)
+                                || ValueResolverGenerator.hasCompletionStageInTypeClosure(clazz, index)) {
+                            // Async results are not supported
+                            bindable = false;
+                            break;
+                        }
+                        if (clazz != null && !Modifier.isPublic(clazz.flags())) {
+                            bindable = false;
+                        }
+                    } else {
+                        // Primitive, array, type variable, etc.
+                        bindable = bindable && type.kind() == Type.Kind.PRIMITIVE;
+                        clazz = null;
+                    }
+                }
+                if (bindable && members.size() == expression.parts.size() - 1) {
+                    appClass.set(rootIndex.getClassByName(declaredClass.name()) != null);
+                    valueAccessors.produce(new ValueAccessorBuildItem(templatePath.getPath(), expression.toOriginalString(),
+                            generator.generate(declaredClass, members)));
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("Found ").append(errors.size())
+                    .append(" incorrect template expressions:");
+            for (String error : errors) {
+                message.append("\n\t- ").append(error);
+            }
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    private boolean hasExtensionMethod(IndexView index, List<MethodInfo> extensionMethods, ClassInfo clazz) {
+        if (extensionMethods == null) {
+            return false;
+        }
+        for (MethodInfo extensionMethod : extensionMethods) {
+            if (!extensionMethod.parameters().isEmpty()
+                    && isAssignableFrom(index, extensionMethod.parameters().get(0).name(), clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAssignableFrom(IndexView index, DotName target, ClassInfo clazz) {
+        if (clazz.name().equals(target) || target.equals(OBJECT)) {
+            return true;
+        }
+        if (clazz.superName() != null) {
+            ClassInfo superClass = index.getClassByName(clazz.superName());
+            if (superClass != null ? isAssignableFrom(index, target, superClass) : clazz.superName().equals(target)) {
+                return true;
+            }
+        }
+        for (DotName interfaceName : clazz.interfaceNames()) {
+            ClassInfo interfaceClass = index.getClassByName(interfaceName);
+            if (interfaceClass != null ? isAssignableFrom(index, target, interfaceClass) : interfaceName.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @BuildStep
     @Record(RUNTIME_INIT)
     void initialize(QuteTemplate template,
             List<GeneratedValueResolverBuildItem> generatedValueResolvers, List<TemplatePathBuildItem> templatePaths,
-            BeanContainerBuildItem beanContainer,
-            List<ServiceStartBuildItem> startedServices) {
+            List<ValueAccessorBuildItem> valueAccessors, BeanContainerBuildItem beanContainer,
+            BeanArchiveIndexBuildItem beanArchiveIndex, List<ServiceStartBuildItem> startedServices) {
+        Map<String, Map<String, String>> accessors = new HashMap<>();
+        for (ValueAccessorBuildItem valueAccessor : valueAccessors) {
+            accessors.computeIfAbsent(valueAccessor.getTemplateId(), id -> new HashMap<>()).put(valueAccessor.getExpression(),
+                    valueAccessor.getClassName());
+        }
         template.start(beanContainer.getValue(), generatedValueResolvers.stream()
                 .map(GeneratedValueResolverBuildItem::getClassName).collect(Collectors.toList()),
-                templatePaths.stream().map(TemplatePathBuildItem::getPath).collect(Collectors.toList()));
+                templatePaths.stream().map(TemplatePathBuildItem::getPath).collect(Collectors.toList()), accessors,
+                collectBeanNames(beanArchiveIndex.getIndex()));
+    }
+
+    /**
+     * 
+     * @param index
+     * @return the names of all beans declared with {@code @Named}
+     */
+    List<String> collectBeanNames(IndexView index) {
+        Set<String> names = new HashSet<>();
+        for (AnnotationInstance named : index.getAnnotations(DotNames.NAMED)) {
+            AnnotationValue value = named.value();
+            String name = value != null ? value.asString() : null;
+            switch (named.target().kind()) {
+                case CLASS:
+                    if (name == null || name.isEmpty()) {
+                        // The simple class name, after converting the first character to lower case
+                        String simpleName = named.target().asClass().name().withoutPackagePrefix();
+                        simpleName = simpleName.substring(simpleName.lastIndexOf('$') + 1);
+                        name = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+                    }
+                    break;
+                case METHOD:
+                    MethodInfo method = named.target().asMethod();
+                    if (!method.hasAnnotation(DotNames.PRODUCES)) {
+                        // Not a producer
+                        continue;
+                    }
+                    if (name == null || name.isEmpty()) {
+                        name = ValueResolverGenerator.isGetterName(method.name())
+                                ? ValueResolverGenerator.getPropertyName(method.name())
+                                : method.name();
+                    }
+                    break;
+                case FIELD:
+                    if (!named.target().asField().hasAnnotation(DotNames.PRODUCES)) {
+                        // Injection point
+                        continue;
+                    }
+                    if (name == null || name.isEmpty()) {
+                        name = named.target().asField().name();
+                    }
+                    break;
+                default:
+                    // Injection point parameter
+                    continue;
+            }
+            names.add(name);
+        }
+        return new ArrayList<>(names);
     }
 
     @BuildStep
@@ -0,0 +1,32 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import io.quarkus.builder.item.MultiBuildItem;
+
+/**
+ * Represents a generated value accessor bound to an expression of a template.
+ */
+public final class ValueAccessorBuildItem extends MultiBuildItem {
+
+    private final String templateId;
+    private final String expression;
+    private final String className;
+
+    public ValueAccessorBuildItem(String templateId, String expression, String className) {
+        this.templateId = templateId;
+        this.expression = expression;
+        this.className = className;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import com.github.mkouba.qute.TemplateData;
+
+/**
+ * Note that the {@code item} property shadows the declared template parameter of the same name.
+ */
+@TemplateData
+public class Child {
+
+    private final String value;
+
+    public Child(String value) {
+        this.value = value;
+    }
+
+    public Child getItem() {
+        return this;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+}
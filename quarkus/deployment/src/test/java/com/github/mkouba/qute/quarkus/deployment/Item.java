@@ -0,0 +1,31 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import java.util.List;
+
+import com.github.mkouba.qute.TemplateData;
+
+@TemplateData
+public class Item {
+
+    private final String name;
+
+    private final List<Child> children;
+
+    public Item(String name, List<Child> children) {
+        this.name = name;
+        this.children = children;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Child> getChildren() {
+        return children;
+    }
+
+    public Child getFirst() {
+        return children.get(0);
+    }
+
+}
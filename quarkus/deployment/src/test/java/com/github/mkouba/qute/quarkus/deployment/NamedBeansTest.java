@@ -0,0 +1,90 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.Produces;
+import javax.inject.Named;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.mkouba.qute.Template;
+import com.github.mkouba.qute.TemplateData;
+import com.github.mkouba.qute.quarkus.TemplatePath;
+
+import io.quarkus.test.QuarkusUnitTest;
+
+public class NamedBeansTest {
+
+    @RegisterExtension
+    static final QuarkusUnitTest config = new QuarkusUnitTest()
+            .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class)
+                    .addClasses(URLService.class, Producers.class, Counter.class)
+                    .addAsResource(new StringAsset("{inject:uRLService.ping}:{inject:greeting}:{inject:counter.id}"),
+                            "META-INF/resources/beans.html"));
+
+    @TemplatePath("beans.html")
+    Template beans;
+
+    @Test
+    public void testNamedBeans() {
+        // The @Dependent bean is not created before it's referenced
+        assertEquals(0, Counter.CREATED.get());
+        assertEquals("pong:hello:1", beans.render(null));
+        // ... and then it's reused
+        assertEquals("pong:hello:1", beans.render(null));
+        assertEquals(1, Counter.CREATED.get());
+    }
+
+    // The default name is "uRLService"
+    @TemplateData
+    @Named
+    @ApplicationScoped
+    public static class URLService {
+
+        public String getPing() {
+            return "pong";
+        }
+
+    }
+
+    @Dependent
+    public static class Producers {
+
+        @Named
+        @Produces
+        String getGreeting() {
+            return "hello";
+        }
+
+    }
+
+    @TemplateData
+    @Named
+    @Dependent
+    public static class Counter {
+
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        private int id;
+
+        @PostConstruct
+        void init() {
+            id = CREATED.incrementAndGet();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+    }
+
+}
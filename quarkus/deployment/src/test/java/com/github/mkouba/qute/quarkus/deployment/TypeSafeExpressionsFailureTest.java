@@ -0,0 +1,42 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.mkouba.qute.Template;
+import com.github.mkouba.qute.quarkus.TemplatePath;
+
+import io.quarkus.test.QuarkusUnitTest;
+
+public class TypeSafeExpressionsFailureTest {
+
+    @RegisterExtension
+    static final QuarkusUnitTest config = new QuarkusUnitTest()
+            .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class)
+                    .addClasses(Item.class, Child.class)
+                    .addAsResource(new StringAsset("{@com.github.mkouba.qute.quarkus.deployment.Item item}"
+                            + "{item.name}{item.value}"),
+                            "META-INF/resources/item.html"))
+            .assertException(t -> {
+                Throwable root = t;
+                while (root.getCause() != null) {
+                    root = root.getCause();
+                }
+                assertTrue(root instanceof IllegalStateException, root.toString());
+                assertTrue(root.getMessage().contains("{item.value}: property \"value\" not found"), root.getMessage());
+            });
+
+    @TemplatePath("item.html")
+    Template item;
+
+    @Test
+    public void testValidationFailed() {
+        // This method should not be invoked
+    }
+
+}
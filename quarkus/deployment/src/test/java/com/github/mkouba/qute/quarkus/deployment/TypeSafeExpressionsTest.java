@@ -0,0 +1,40 @@
+package com.github.mkouba.qute.quarkus.deployment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.github.mkouba.qute.Template;
+import com.github.mkouba.qute.quarkus.TemplatePath;
+
+import io.quarkus.test.QuarkusUnitTest;
+
+public class TypeSafeExpressionsTest {
+
+    @RegisterExtension
+    static final QuarkusUnitTest config = new QuarkusUnitTest()
+            .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class)
+                    .addClasses(Item.class, Child.class)
+                    .addAsResource(new StringAsset("{@com.github.mkouba.qute.quarkus.deployment.Item item}"
+                            + "{item.name}:"
+                            // "item" is resolved against the iteration element first
+                            + "{#for child in item.children}{item.value}{/for}:"
+                            + "{#with item.first}{item.value}{/with}"),
+                            "META-INF/resources/item.html"));
+
+    @TemplatePath("item.html")
+    Template item;
+
+    @Test
+    public void testNestedExpressions() {
+        assertEquals("foo:ab:a",
+                item.instance().data("item", new Item("foo", Arrays.asList(new Child("a"), new Child("b")))).render());
+    }
+
+}
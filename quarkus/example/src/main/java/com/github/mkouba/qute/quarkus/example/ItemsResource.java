@@ -5,9 +5,7 @@ import static io.vertx.core.http.HttpMethod.GET;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import com.github.mkouba.qute.Template;
 import com.github.mkouba.qute.TemplateExtension;
@@ -33,11 +31,15 @@ public class ItemsResource {
 
     @Route(path = "/items", methods = GET, produces = "text/html")
     public void items(RoutingExchange exchange) {
-
-        Map<String, Object> data = new HashMap<>();
-        data.put("items", dummyItems());
-        data.put("limit", BigDecimal.valueOf(800));
-        exchange.ok(items.render(data));
+        // Never block the event loop
+        items.instance().computedData("items", this::dummyItems).data("limit", BigDecimal.valueOf(800)).renderAsync()
+                .whenComplete((r, t) -> {
+                    if (t == null) {
+                        exchange.ok(r);
+                    } else {
+                        exchange.context().fail(t);
+                    }
+                });
     }
 
     private List<Item> dummyItems() {
@@ -3,14 +3,14 @@ package com.github.mkouba.qute.quarkus.example;
 import static io.vertx.core.http.HttpMethod.GET;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.time.temporal.TemporalAccessor;
 
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 import com.github.mkouba.qute.Engine;
+import com.github.mkouba.qute.EngineBuilder;
+import com.github.mkouba.qute.Formatters;
 import com.github.mkouba.qute.Template;
 import com.github.mkouba.qute.quarkus.TemplatePath;
 
@@ -27,21 +27,12 @@ public class PullsResource {
 
     @Route(path = "/pulls", methods = GET, produces = "text/html")
     public void getPulls(RoutingExchange exchange) {
-        exchange.response().setChunked(true);
-        Map<String, Object> data = new HashMap<>();
-        data.put("generatedTime", LocalDateTime.now());
-        pulls.render(data, exchange.response()::write)
-                .whenComplete((v, t) -> {
-                    if (t == null) {
-                        exchange.ok().end();
-                    } else {
-                        Throwable cause = t.getCause();
-                        exchange.serverError()
-                                .end(cause.toString() + "\n"
-                                        + Arrays.stream(cause.getStackTrace()).map(s -> "\t" + s.toString())
-                                                .collect(Collectors.joining("\n")));
-                    }
-                });
+        TemplateRoutes.render(pulls.instance().data("generatedTime", LocalDateTime.now()), exchange);
+    }
+
+    // Format all temporal values, e.g. {generatedTime}
+    void configureFormatters(@Observes EngineBuilder builder) {
+        builder.addFormatter(TemporalAccessor.class, Formatters.temporal("yyyy-MM-dd HH:mm:ss"));
     }
 
     @Route(path = "/onthefly", methods = GET, produces = "text/html")
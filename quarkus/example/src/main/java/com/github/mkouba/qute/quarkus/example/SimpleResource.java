@@ -22,7 +22,14 @@ public class SimpleResource {
 
     @Route(path = "/simple", methods = GET, produces = "text/html")
     public void simple(RoutingExchange exchange) {
-        exchange.ok(simple.render(Collections.singletonList("foo")));
+        // Never block the event loop
+        simple.instance().data(Collections.singletonList("foo")).renderAsync().whenComplete((r, t) -> {
+            if (t == null) {
+                exchange.ok(r);
+            } else {
+                exchange.context().fail(t);
+            }
+        });
     }
 
     void addErrorHandler(@Observes Router router) {
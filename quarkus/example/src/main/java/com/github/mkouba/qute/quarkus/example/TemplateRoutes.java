@@ -0,0 +1,46 @@
+package com.github.mkouba.qute.quarkus.example;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+import com.github.mkouba.qute.TemplateInstance;
+
+import io.netty.buffer.Unpooled;
+import io.quarkus.vertx.web.RoutingExchange;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * Streams the output of a template instance to a chunked HTTP response. Each chunk is copied into an unpooled heap
+ * buffer, i.e. the output is encoded once and no intermediate strings are created, and nothing leaks if a write fails.
+ */
+final class TemplateRoutes {
+
+    private TemplateRoutes() {
+    }
+
+    static CompletionStage<Void> render(TemplateInstance instance, RoutingExchange exchange) {
+        HttpServerResponse response = exchange.response();
+        response.setChunked(true);
+        return instance.renderBytes(chunk -> {
+            // The chunk buffer is reused by the engine
+            response.write(Buffer.buffer(Unpooled.copiedBuffer(chunk)));
+        }).whenComplete((v, t) -> {
+            if (t == null) {
+                exchange.ok().end();
+            } else if (response.headWritten()) {
+                // Part of the output was already sent
+                response.close();
+            } else {
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                exchange.serverError()
+                        .end(cause.toString() + "\n"
+                                + Arrays.stream(cause.getStackTrace()).map(s -> "\t" + s.toString())
+                                        .collect(Collectors.joining("\n")));
+            }
+        });
+    }
+
+}
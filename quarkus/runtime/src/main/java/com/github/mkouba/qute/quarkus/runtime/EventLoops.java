@@ -0,0 +1,56 @@
+package com.github.mkouba.qute.quarkus.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects the Vert.x event loop threads. Vert.x is not a dependency of the extension, i.e. the check is only available if
+ * Vert.x is on the classpath.
+ */
+final class EventLoops {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoops.class);
+
+    private static final MethodHandle IS_ON_EVENT_LOOP_THREAD = findCheck();
+
+    private EventLoops() {
+    }
+
+    static boolean isAvailable() {
+        return IS_ON_EVENT_LOOP_THREAD != null;
+    }
+
+    /**
+     * 
+     * @return {@code true} if the current thread is a Vert.x event loop thread
+     */
+    static boolean isEventLoopThread() {
+        if (IS_ON_EVENT_LOOP_THREAD == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_ON_EVENT_LOOP_THREAD.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findCheck() {
+        try {
+            Class<?> context = Class.forName("io.vertx.core.Context", false, EventLoops.class.getClassLoader());
+            return MethodHandles.publicLookup().findStatic(context, "isOnEventLoopThread",
+                    MethodType.methodType(boolean.class));
+        } catch (ClassNotFoundException e) {
+            LOGGER.debug("Vert.x not found - event loop threads are not detected");
+            return null;
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            LOGGER.warn("Unable to detect Vert.x event loop threads", e);
+            return null;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.github.mkouba.qute.quarkus.runtime;
 
 import java.util.List;
+import java.util.Map;
 
 import io.quarkus.arc.runtime.BeanContainer;
 import io.quarkus.runtime.annotations.Template;
@@ -8,9 +9,10 @@ import io.quarkus.runtime.annotations.Template;
 @Template
 public class QuteTemplate {
 
-    public void start(BeanContainer container, List<String> resolverClasses, List<String> templatePaths) {
+    public void start(BeanContainer container, List<String> resolverClasses, List<String> templatePaths,
+            Map<String, Map<String, String>> valueAccessors, List<String> beanNames) {
         TemplateProducer templateProducer = container.instance(TemplateProducer.class);
-        templateProducer.init(resolverClasses, templatePaths);
+        templateProducer.init(resolverClasses, templatePaths, valueAccessors, beanNames);
     }
 
 }
@@ -5,15 +5,24 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.context.NormalScope;
 import javax.enterprise.event.Event;
+import javax.enterprise.inject.AmbiguousResolutionException;
 import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -23,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.mkouba.qute.Engine;
 import com.github.mkouba.qute.EngineBuilder;
+import com.github.mkouba.qute.Expression;
 import com.github.mkouba.qute.IfSectionHelper;
 import com.github.mkouba.qute.IncludeSectionHelper;
 import com.github.mkouba.qute.InsertSectionHelper;
@@ -30,11 +40,15 @@ import com.github.mkouba.qute.LoopSectionHelper;
 import com.github.mkouba.qute.NamespaceResolver;
 import com.github.mkouba.qute.Results.Result;
 import com.github.mkouba.qute.Template;
+import com.github.mkouba.qute.TemplateInstance;
+import com.github.mkouba.qute.ValueAccessor;
 import com.github.mkouba.qute.ValueResolver;
 import com.github.mkouba.qute.WithSectionHelper;
 import com.github.mkouba.qute.quarkus.TemplatePath;
 
 import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import io.quarkus.arc.InjectableBean;
 import io.quarkus.arc.InstanceHandle;
 
 @Singleton
@@ -47,7 +61,10 @@ public class TemplateProducer {
 
     private Engine engine;
 
-    void init(List<String> resolverClasses, List<String> templatePaths) {
+    private final List<NamedBean> lazyNamedBeans = new CopyOnWriteArrayList<>();
+
+    void init(List<String> resolverClasses, List<String> templatePaths, Map<String, Map<String, String>> valueAccessors,
+            List<String> beanNames) {
         if (engine != null) {
             LOGGER.warn("Qute already initialized!");
             return;
@@ -56,13 +73,22 @@ public class TemplateProducer {
         EngineBuilder builder = Engine.builder()
                 .addSectionHelpers(new LoopSectionHelper.Factory(), new IfSectionHelper.Factory(),
                         new WithSectionHelper.Factory(), new IncludeSectionHelper.Factory(), new InsertSectionHelper.Factory());
+        if (EventLoops.isAvailable()) {
+            // Never block the event loop, the check can be replaced by an observer
+            builder.nonBlockingThreadCheck(EventLoops::isEventLoopThread);
+        }
         // Allow anyone to customize the builder
         event.fire(builder);
-        // Resolve @Named beans
+        // Resolve @Named beans - a bean is only looked up once per rendering
+        Map<String, Supplier<Object>> namedBeans = initNamedBeans(beanNames);
         builder.addNamespaceResolver(NamespaceResolver.builder("inject").resolve(ctx -> {
+            Supplier<Object> namedBean = namedBeans.get(ctx.getName());
+            if (namedBean != null) {
+                return namedBean.get();
+            }
             InstanceHandle<Object> bean = Arc.container().instance(ctx.getName());
             return bean.isAvailable() ? bean.get() : Result.NOT_FOUND;
-        }).build());
+        }).pure().build());
         // Basic value resolvers
         builder.addDefaultValueResolvers();
         // Add generated resolvers
@@ -70,6 +96,15 @@ public class TemplateProducer {
             builder.addValueResolver(createResolver(resolverClass));
             LOGGER.debug("Added generated value resolver: {}", resolverClass);
         }
+        // Add accessors generated for type-safe expressions
+        for (Entry<String, Map<String, String>> templateEntry : valueAccessors.entrySet()) {
+            for (Entry<String, String> accessorEntry : templateEntry.getValue().entrySet()) {
+                builder.addValueAccessor(templateEntry.getKey(), accessorEntry.getKey(),
+                        createAccessor(accessorEntry.getValue()));
+                LOGGER.debug("Added generated value accessor for {{}} in {}: {}", accessorEntry.getKey(),
+                        templateEntry.getKey(), accessorEntry.getValue());
+            }
+        }
         // Add locator
         builder.addLocator(this::locate);
         engine = builder.build();
@@ -80,6 +115,51 @@ public class TemplateProducer {
         }
     }
 
+    /**
+     * The client proxy of a normal scoped bean is obtained only once. An instance of any other bean is created when the
+     * bean is referenced for the first time and then reused, i.e. a {@code @Dependent} bean is shared by all renderings
+     * and destroyed together with this producer.
+     * 
+     * @param beanNames the names of the beans discovered during the build
+     * @return the map of names to suppliers
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Supplier<Object>> initNamedBeans(List<String> beanNames) {
+        ArcContainer container = Arc.container();
+        BeanManager beanManager = container.beanManager();
+        Map<String, Supplier<Object>> namedBeans = new HashMap<>();
+        for (String name : beanNames) {
+            // Note that ArcContainer.bean(String) looks up a bean by its identifier, not by its name
+            InjectableBean<Object> bean;
+            try {
+                bean = (InjectableBean<Object>) beanManager.resolve(beanManager.getBeans(name));
+            } catch (AmbiguousResolutionException e) {
+                LOGGER.debug("Named bean is ambiguous: {}", name);
+                continue;
+            }
+            if (bean == null) {
+                LOGGER.debug("Named bean not available: {}", name);
+                continue;
+            }
+            if (bean.getScope().isAnnotationPresent(NormalScope.class)) {
+                Object clientProxy = container.instance(bean).get();
+                namedBeans.put(name, () -> clientProxy);
+            } else {
+                NamedBean namedBean = new NamedBean(container, bean);
+                lazyNamedBeans.add(namedBean);
+                namedBeans.put(name, namedBean);
+            }
+        }
+        return namedBeans;
+    }
+
+    @PreDestroy
+    void destroy() {
+        for (NamedBean namedBean : lazyNamedBeans) {
+            namedBean.destroy();
+        }
+    }
+
     ValueResolver createResolver(String resolverClassName) {
         try {
             Class<?> resolverClazz = Thread.currentThread()
@@ -93,6 +173,19 @@ public class TemplateProducer {
         }
     }
 
+    ValueAccessor createAccessor(String accessorClassName) {
+        try {
+            Class<?> accessorClazz = Thread.currentThread()
+                    .getContextClassLoader().loadClass(accessorClassName);
+            if (ValueAccessor.class.isAssignableFrom(accessorClazz)) {
+                return (ValueAccessor) accessorClazz.newInstance();
+            }
+            throw new IllegalStateException("Not a value accessor: " + accessorClassName);
+        } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to create accessor: " + accessorClassName, e);
+        }
+    }
+
     @Produces
     @TemplatePath
     Template getTemplate(InjectionPoint injectionPoint) {
@@ -150,6 +243,11 @@ public class TemplateProducer {
             this.path = path;
         }
 
+        @Override
+        public TemplateInstance instance() {
+            return delegate().instance();
+        }
+
         @Override
         public String render(Object data) {
             return delegate().render(data);
@@ -160,6 +258,21 @@ public class TemplateProducer {
             return delegate().render(data, resultConsumer);
         }
 
+        @Override
+        public Map<String, String> getParameterDeclarations() {
+            return delegate().getParameterDeclarations();
+        }
+
+        @Override
+        public List<Expression> getExpressions() {
+            return delegate().getExpressions();
+        }
+
+        @Override
+        public int getOutputSizeHint() {
+            return delegate().getOutputSizeHint();
+        }
+
         Template delegate() {
             Template template = engine.get().getTemplate(path);
             if (template == null) {
@@ -170,4 +283,39 @@ public class TemplateProducer {
 
     }
 
+    static final class NamedBean implements Supplier<Object> {
+
+        private final ArcContainer container;
+        private final InjectableBean<Object> bean;
+        private volatile InstanceHandle<Object> handle;
+
+        NamedBean(ArcContainer container, InjectableBean<Object> bean) {
+            this.container = container;
+            this.bean = bean;
+        }
+
+        @Override
+        public Object get() {
+            InstanceHandle<Object> handle = this.handle;
+            if (handle == null) {
+                synchronized (this) {
+                    handle = this.handle;
+                    if (handle == null) {
+                        handle = container.instance(bean);
+                        this.handle = handle;
+                    }
+                }
+            }
+            return handle.get();
+        }
+
+        void destroy() {
+            InstanceHandle<Object> handle = this.handle;
+            if (handle != null && Dependent.class.equals(bean.getScope())) {
+                handle.destroy();
+            }
+        }
+
+    }
+
 }